@@ -0,0 +1,223 @@
+package eu.davidea.fastscroller;
+
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
+import android.view.MotionEvent;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.TextView;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import eu.davidea.flexibleadapter.BuildConfig;
+import eu.davidea.flexibleadapter.R;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Drags the handle at half of the track and checks the position the list is scrolled to.
+ *
+ * @author Davide Steduto
+ * @since 19/10/2016
+ */
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class)
+public class FastScrollerTest {
+
+	static final int WIDTH = 100, HEIGHT = 500;
+
+	TestAdapter mAdapter;
+	RecyclerView mRecyclerView;
+	LinearLayoutManager mLayoutManager;
+	FastScroller mFastScroller;
+
+	@Before
+	public void setUp() throws Exception {
+		mAdapter = new TestAdapter();
+		mRecyclerView = new RecyclerView(RuntimeEnvironment.application);
+		mLayoutManager = new LinearLayoutManager(RuntimeEnvironment.application);
+		mRecyclerView.setLayoutManager(mLayoutManager);
+		mRecyclerView.setAdapter(mAdapter);
+		mFastScroller = new FastScroller(RuntimeEnvironment.application);
+		mFastScroller.setViewsToUse(R.layout.library_fast_scroller_layout,
+				R.id.fast_scroller_bubble, R.id.fast_scroller_handle);
+		mFastScroller.setRecyclerView(mRecyclerView);
+		layout(mRecyclerView, WIDTH);
+		layout(mFastScroller, 40);
+	}
+
+	private static void layout(View view, int width) {
+		view.measure(View.MeasureSpec.makeMeasureSpec(width, View.MeasureSpec.EXACTLY),
+				View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+		view.layout(0, 0, width, HEIGHT);
+	}
+
+	private void dragToMiddle() {
+		MotionEvent down = MotionEvent.obtain(0, 0, MotionEvent.ACTION_DOWN, 39, HEIGHT / 2, 0);
+		mFastScroller.onTouchEvent(down);
+		down.recycle();
+		MotionEvent up = MotionEvent.obtain(0, 0, MotionEvent.ACTION_UP, 39, HEIGHT / 2, 0);
+		mFastScroller.onTouchEvent(up);
+		up.recycle();
+		layout(mRecyclerView, WIDTH);
+	}
+
+	private void addItems(int count, int height) {
+		for (int i = 0; i < count; i++) {
+			mAdapter.heights.add(height);
+		}
+		mAdapter.notifyDataSetChanged();
+		layout(mRecyclerView, WIDTH);
+	}
+
+	/**
+	 * Lays out the rows around the position and scrolls by 1 pixel, so the FastScroller learns
+	 * the heights of the children.
+	 */
+	private void sampleHeightsAround(int position) {
+		mLayoutManager.scrollToPositionWithOffset(position, 0);
+		layout(mRecyclerView, WIDTH);
+		mRecyclerView.scrollBy(0, 1);
+		layout(mRecyclerView, WIDTH);
+	}
+
+	@Test
+	public void testSectionModeSnapsToSectionStart() throws Exception {
+		addItems(100, 20);
+		mAdapter.sectionStarts.add(30);
+		mAdapter.sectionStarts.add(60);
+		mFastScroller.setSectionMode(true);
+
+		//Half of the items is position 50, inside the section starting at 30
+		dragToMiddle();
+		assertEquals(30, mLayoutManager.findFirstVisibleItemPosition());
+		TextView bubble = (TextView) mFastScroller.findViewById(R.id.fast_scroller_bubble);
+		assertEquals("30", bubble.getText().toString());
+	}
+
+	@Test
+	public void testSectionModeUpdatesChangedItems() throws Exception {
+		addItems(100, 20);
+		mAdapter.sectionStarts.add(30);
+		mAdapter.sectionStarts.add(60);
+		mFastScroller.setSectionMode(true);
+		dragToMiddle();
+		assertEquals(99, mAdapter.sectionCalls);
+
+		//A changed item that is not a section start doesn't rebuild the jump table
+		mAdapter.notifyItemChanged(40);
+		dragToMiddle();
+		assertEquals(100, mAdapter.sectionCalls);
+
+		//A new section start does
+		mAdapter.sectionStarts.add(45);
+		mAdapter.notifyItemChanged(45);
+		dragToMiddle();
+		assertEquals(45, mLayoutManager.findFirstVisibleItemPosition());
+	}
+
+	@Test
+	public void testSectionModeWithoutSectionsScrollsToPosition() throws Exception {
+		addItems(100, 20);
+		mFastScroller.setSectionMode(true);
+
+		//Only the leading section: the drag must not snap to the top
+		dragToMiddle();
+		assertEquals(50, mLayoutManager.findFirstVisibleItemPosition());
+	}
+
+	@Test
+	public void testHeightEstimationMapsEstimatedPixels() throws Exception {
+		addItems(50, 10);
+		addItems(50, 90);
+		mFastScroller.setHeightEstimation(true);
+		sampleHeightsAround(45);
+
+		//Estimated total 50*10 + 50*90 = 5000px, range 4500px: the middle is 2250px, that is
+		//inside position 50 + (2250 - 500) / 90 = 69, not position 50
+		dragToMiddle();
+		assertEquals(69, mLayoutManager.findFirstVisibleItemPosition());
+	}
+
+	@Test
+	public void testHeightEstimationUpdatesOnlyNotifiedRanges() throws Exception {
+		addItems(50, 10);
+		addItems(50, 90);
+		mFastScroller.setHeightEstimation(true);
+		sampleHeightsAround(45);
+		dragToMiddle();
+		assertEquals(100, mAdapter.peekCalls);
+
+		//Only the inserted positions are read
+		for (int i = 0; i < 5; i++) {
+			mAdapter.heights.add(10, 10);
+		}
+		mAdapter.notifyItemRangeInserted(10, 5);
+		dragToMiddle();
+		assertEquals(105, mAdapter.peekCalls);
+		//Estimated total 55*10 + 45*90 = 4600px, range 4100px: the middle is 2050px
+		assertEquals(71, mLayoutManager.findFirstVisibleItemPosition());
+	}
+
+	/**
+	 * The view type of each position is its height in pixels.
+	 */
+	static class TestAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder>
+			implements FastScroller.BubbleTextCreator, FastScroller.SectionProvider,
+			FastScroller.ViewTypeProvider {
+
+		final List<Integer> heights = new ArrayList<Integer>();
+		final Set<Integer> sectionStarts = new HashSet<Integer>();
+		int peekCalls = 0, sectionCalls = 0;
+
+		@Override
+		public RecyclerView.ViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+			View view = new View(parent.getContext());
+			view.setLayoutParams(new RecyclerView.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, viewType));
+			return new RecyclerView.ViewHolder(view) {
+			};
+		}
+
+		@Override
+		public void onBindViewHolder(RecyclerView.ViewHolder holder, int position) {
+		}
+
+		@Override
+		public int getItemCount() {
+			return heights.size();
+		}
+
+		@Override
+		public int getItemViewType(int position) {
+			return heights.get(position);
+		}
+
+		@Override
+		public int peekItemViewType(int position) {
+			peekCalls++;
+			return heights.get(position);
+		}
+
+		@Override
+		public String onCreateBubbleText(int position) {
+			return String.valueOf(position);
+		}
+
+		@Override
+		public boolean isSectionStart(int position) {
+			sectionCalls++;
+			return sectionStarts.contains(position);
+		}
+	}
+
+}
@@ -0,0 +1,155 @@
+package eu.davidea.flexibleadapter;
+
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import eu.davidea.flexibleadapter.items.AbstractFlexibleItem;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Scrolls a long list attached to a laid out RecyclerView, binding each position until the
+ * end as the RecyclerView does, and counts the bytes allocated by the bind path of the Adapter.
+ *
+ * @author Davide Steduto
+ * @since 19/10/2016
+ */
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class)
+public class BindAllocationTest {
+
+	static final int ITEM_COUNT = 1000, PASSES = 10;
+	static final int WIDTH = 480, HEIGHT = 800, ITEM_HEIGHT = 100;
+
+	FlexibleAdapter<BindItem> mAdapter;
+	RecyclerView mRecyclerView;
+	RecyclerView.ViewHolder mHolder;
+	com.sun.management.ThreadMXBean mThreadBean;
+	int mLoadMoreCalls;
+
+	@Before
+	public void setUp() throws Exception {
+		List<BindItem> items = new ArrayList<>();
+		for (int i = 0; i < ITEM_COUNT; i++) {
+			items.add(new BindItem(i));
+		}
+		mAdapter = new FlexibleAdapter<>(items);
+		//Endless scroll active: the page stays in flight, so the end is bound with the progress item
+		mAdapter.setEndlessScrollListener(new FlexibleAdapter.EndlessScrollListener() {
+			@Override
+			public void onLoadMore() {
+				mLoadMoreCalls++;
+			}
+		}, new BindItem(-1));
+		//Attached and laid out: the threshold is computed from the children and the velocity
+		mRecyclerView = new RecyclerView(RuntimeEnvironment.application);
+		mRecyclerView.setLayoutManager(new LinearLayoutManager(RuntimeEnvironment.application));
+		mRecyclerView.setAdapter(mAdapter);
+		mRecyclerView.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+				View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+		mRecyclerView.layout(0, 0, WIDTH, HEIGHT);
+		mHolder = mAdapter.createViewHolder(mRecyclerView, mAdapter.getItemViewType(0));
+		mThreadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		assumeTrue(mThreadBean.isThreadAllocatedMemorySupported());
+		mThreadBean.setThreadAllocatedMemoryEnabled(true);
+	}
+
+	@Test
+	public void testSteadyStateBindAllocatesNothing() throws Exception {
+		assertTrue(mRecyclerView.getChildCount() > 0);
+		//Warm up: the end is reached once and the progress item is added in post
+		scroll();
+		ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+		assertEquals(1, mLoadMoreCalls);
+		assertEquals(ITEM_COUNT + 1, mAdapter.getItemCount());
+		//Classes loaded and methods compiled through the end, progress item included
+		scroll();
+		frameworkCalls();
+
+		//The View calls are made by any bind path: only the garbage of the Adapter counts
+		long frameworkBytes = measure(false);
+		long bindBytes = measure(true);
+		assertEquals("Garbage allocated by the Adapter while scrolling", 0, Math.max(0, bindBytes - frameworkBytes));
+		//The page in flight is not requested again
+		ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+		assertEquals(1, mLoadMoreCalls);
+	}
+
+	private long measure(boolean bind) {
+		long threadId = Thread.currentThread().getId();
+		long start = mThreadBean.getThreadAllocatedBytes(threadId);
+		if (bind) scroll();
+		else frameworkCalls();
+		return mThreadBean.getThreadAllocatedBytes(threadId) - start;
+	}
+
+	private void scroll() {
+		for (int pass = 0; pass < PASSES; pass++) {
+			for (int position = 0; position < mAdapter.getItemCount(); position++) {
+				mAdapter.onBindViewHolder(mHolder, position);
+			}
+		}
+	}
+
+	private void frameworkCalls() {
+		for (int pass = 0; pass < PASSES; pass++) {
+			for (int position = 0; position < mAdapter.getItemCount(); position++) {
+				mHolder.itemView.setActivated(false);
+				mHolder.itemView.setEnabled(true);
+			}
+		}
+	}
+
+	static class BindItem extends AbstractFlexibleItem<RecyclerView.ViewHolder> {
+		final int id;
+
+		BindItem(int id) {
+			this.id = id;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			return o instanceof BindItem && ((BindItem) o).id == id;
+		}
+
+		@Override
+		public int hashCode() {
+			return id;
+		}
+
+		@Override
+		public int getLayoutRes() {
+			return 1;
+		}
+
+		@Override
+		public RecyclerView.ViewHolder createViewHolder(FlexibleAdapter adapter, LayoutInflater inflater, ViewGroup parent) {
+			View view = new View(parent.getContext());
+			view.setLayoutParams(new RecyclerView.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, ITEM_HEIGHT));
+			return new RecyclerView.ViewHolder(view) {
+			};
+		}
+
+		@Override
+		public void bindViewHolder(FlexibleAdapter adapter, RecyclerView.ViewHolder holder, int position, List payloads) {
+		}
+	}
+
+}
@@ -0,0 +1,156 @@
+package eu.davidea.flexibleadapter;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author Davide Steduto
+ * @since 19/10/2016
+ */
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class)
+public class ViewTypeCounterTest {
+
+	@Test
+	public void testCountsAfterInit() throws Exception {
+		ViewTypeCounter counter = new ViewTypeCounter();
+		counter.init(new int[]{1, 2, 1, 3, 1}, 5);
+		assertEquals(3, counter.countOf(1));
+		assertEquals(1, counter.countOf(2));
+		assertEquals(0, counter.countOf(4));
+		assertEquals(0, counter.countOfUntil(1, 0));
+		assertEquals(2, counter.countOfUntil(1, 3));
+		assertEquals(3, counter.countOfUntil(1, 10));
+	}
+
+	@Test
+	public void testAppendsAfterTreeIsBuilt() throws Exception {
+		ViewTypeCounter counter = new ViewTypeCounter();
+		counter.init(new int[]{1, 1, 1}, 3);
+		//Builds the tree
+		assertEquals(2, counter.countOfUntil(1, 2));
+		//Endless scroll: the tree survives the appends
+		for (int i = 0; i < 6; i++) {
+			counter.insert(counter.size(), 1);
+		}
+		assertEquals(8, counter.countOfUntil(1, 8));
+		assertEquals(9, counter.countOf(1));
+	}
+
+	@Test
+	public void testMiddleOperationsOnLargeList() throws Exception {
+		ViewTypeCounter counter = new ViewTypeCounter();
+		List<Integer> reference = new ArrayList<>();
+		int[] types = new int[5000];
+		for (int i = 0; i < types.length; i++) {
+			types[i] = i % 2;
+			reference.add(types[i]);
+		}
+		counter.init(types, types.length);
+		//Blocks are split and rebalanced while the list grows from the middle
+		for (int i = 0; i < 20000; i++) {
+			counter.insert(reference.size() / 2, 2);
+			reference.add(reference.size() / 2, 2);
+		}
+		for (int i = 0; i < 24000; i++) {
+			counter.remove(reference.size() / 3);
+			reference.remove(reference.size() / 3);
+		}
+		for (int position = 0; position <= reference.size(); position += 97) {
+			for (int viewType = 0; viewType < 3; viewType++) {
+				assertEquals(countOfUntil(reference, viewType, position), counter.countOfUntil(viewType, position));
+			}
+		}
+	}
+
+	@Test
+	public void testWeightsFollowTheNewValues() throws Exception {
+		ViewTypeCounter counter = new ViewTypeCounter();
+		counter.init(new int[]{10, 10, 90, 90, 10}, 5);
+		final float[] scale = {1f};
+		ViewTypeCounter.Weigher weigher = new ViewTypeCounter.Weigher() {
+			@Override
+			public float weightOf(int viewType) {
+				return viewType * scale[0];
+			}
+		};
+		assertEquals(110f, counter.weightUntil(3, weigher), 0f);
+		assertEquals(3, counter.positionOfWeight(110f, weigher));
+		assertEquals(1, counter.positionOfWeight(19f, weigher));
+		counter.insert(1, 90);
+		assertEquals(110f, counter.weightUntil(3, weigher), 0f);
+		//A new weight is applied without rebuilding
+		scale[0] = 2f;
+		assertEquals(220f, counter.weightUntil(3, weigher), 0f);
+		assertEquals(5, counter.positionOfWeight(10000f, weigher));
+	}
+
+	@Test
+	public void testRandomOperationsMatchReference() throws Exception {
+		Random random = new Random(19102016L);
+		for (int run = 0; run < 200; run++) {
+			ViewTypeCounter counter = new ViewTypeCounter();
+			List<Integer> reference = new ArrayList<>();
+			int size = random.nextInt(20);
+			int[] types = new int[size];
+			for (int i = 0; i < size; i++) {
+				types[i] = random.nextInt(3);
+				reference.add(types[i]);
+			}
+			counter.init(types, size);
+			for (int op = 0; op < 100; op++) {
+				int position = random.nextInt(reference.size() + 1);
+				int viewType = random.nextInt(3);
+				switch (random.nextInt(5)) {
+					case 0:
+						counter.insert(position, viewType);
+						reference.add(Math.min(position, reference.size()), viewType);
+						break;
+					case 1:
+						counter.insert(reference.size(), viewType);
+						reference.add(viewType);
+						break;
+					case 2:
+						if (position < reference.size()) {
+							counter.remove(position);
+							reference.remove(position);
+						}
+						break;
+					case 3:
+						if (position < reference.size()) {
+							counter.change(position, viewType);
+							reference.set(position, viewType);
+						}
+						break;
+					case 4:
+						if (reference.size() > 1) {
+							int from = random.nextInt(reference.size()), to = random.nextInt(reference.size());
+							counter.move(from, to);
+							reference.add(to, reference.remove(from));
+						}
+						break;
+				}
+				int until = random.nextInt(reference.size() + 2);
+				assertEquals(countOfUntil(reference, viewType, until), counter.countOfUntil(viewType, until));
+				assertEquals(countOfUntil(reference, viewType, reference.size()), counter.countOf(viewType));
+			}
+		}
+	}
+
+	private static int countOfUntil(List<Integer> reference, int viewType, int position) {
+		int count = 0;
+		for (int i = 0; i < Math.min(position, reference.size()); i++) {
+			if (reference.get(i) == viewType) count++;
+		}
+		return count;
+	}
+
+}
@@ -0,0 +1,224 @@
+package eu.davidea.flexibleadapter.common;
+
+import android.support.v7.widget.RecyclerView;
+import android.view.ViewGroup;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import eu.davidea.flexibleadapter.BuildConfig;
+import eu.davidea.samples.flexibleadapter.models.SimpleItem;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Davide Steduto
+ * @since 19/10/2016
+ */
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class)
+public class PagedListTest {
+
+	static final int TOTAL = 100, PAGE_SIZE = 10;
+
+	PagedList<SimpleItem> mPagedList;
+	List<Integer> mLoadedPages;
+	List<int[]> mChangedRanges;
+	List<Runnable> mPendingLoads;
+	int mCreatedPlaceholders;
+	boolean mFail;
+
+	@Before
+	public void setUp() throws Exception {
+		mLoadedPages = new ArrayList<>();
+		mChangedRanges = new ArrayList<>();
+		mPendingLoads = new ArrayList<>();
+		mPagedList = new PagedList<>(TOTAL, PAGE_SIZE,
+				new PagedList.PlaceholderFactory<SimpleItem>() {
+					@Override
+					public SimpleItem createPlaceholder(int position) {
+						mCreatedPlaceholders++;
+						return new SimpleItem("placeholder" + position);
+					}
+				},
+				new PagedList.PageLoader<SimpleItem>() {
+					@Override
+					public List<SimpleItem> onLoadPage(int page, int startPosition, int count) {
+						mLoadedPages.add(page);
+						if (mFail) return null;
+						List<SimpleItem> items = new ArrayList<>();
+						for (int i = 0; i < count; i++) {
+							items.add(new SimpleItem("item" + (startPosition + i)));
+						}
+						return items;
+					}
+				});
+		//Loads are executed only when requested by the test
+		mPagedList.setExecutor(new Executor() {
+			@Override
+			public void execute(Runnable command) {
+				mPendingLoads.add(command);
+			}
+		});
+		mPagedList.setPrefetchDistance(0);
+		RecyclerView.Adapter adapter = new RecyclerView.Adapter() {
+			@Override
+			public RecyclerView.ViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+				return null;
+			}
+
+			@Override
+			public void onBindViewHolder(RecyclerView.ViewHolder holder, int position) {
+			}
+
+			@Override
+			public int getItemCount() {
+				return mPagedList.size();
+			}
+		};
+		adapter.registerAdapterDataObserver(new RecyclerView.AdapterDataObserver() {
+			@Override
+			public void onItemRangeChanged(int positionStart, int itemCount) {
+				mChangedRanges.add(new int[]{positionStart, itemCount});
+			}
+		});
+		mPagedList.setAdapter(adapter);
+	}
+
+	private void runPendingLoads() {
+		List<Runnable> loads = new ArrayList<>(mPendingLoads);
+		mPendingLoads.clear();
+		for (Runnable load : loads) load.run();
+	}
+
+	@Test
+	public void testGetRequestsPageOnce() throws Exception {
+		SimpleItem placeholder = mPagedList.get(15);
+		mPagedList.get(16);
+		assertEquals(1, mPendingLoads.size());
+		assertFalse(mPagedList.isLoaded(15));
+		assertEquals("placeholder15", placeholder.getId());
+		assertFalse(placeholder.isEnabled());
+
+		runPendingLoads();
+		assertTrue(mPagedList.isLoaded(15));
+		assertEquals("item15", mPagedList.get(15).getId());
+		assertEquals(1, mChangedRanges.size());
+		assertEquals(10, mChangedRanges.get(0)[0]);
+		assertEquals(PAGE_SIZE, mChangedRanges.get(0)[1]);
+	}
+
+	@Test
+	public void testPlaceholdersArePerPosition() throws Exception {
+		SimpleItem placeholder = mPagedList.peek(3);
+		assertSame(placeholder, mPagedList.peek(3));
+		assertNotSame(placeholder, mPagedList.peek(4));
+		assertEquals(3, mPagedList.indexOf(placeholder));
+	}
+
+	@Test
+	public void testScansDoNotLoadPages() throws Exception {
+		int count = 0;
+		for (SimpleItem item : mPagedList) {
+			if (item != null) count++;
+		}
+		assertEquals(TOTAL, count);
+		mPagedList.peek(50);
+		mPagedList.indexOf(new SimpleItem("item50"));
+		assertTrue(mPendingLoads.isEmpty());
+		assertTrue(mLoadedPages.isEmpty());
+	}
+
+	@Test
+	public void testViewTypeScanDoesNotCreatePlaceholders() throws Exception {
+		for (int i = 0; i < TOTAL; i++) {
+			assertFalse(mPagedList.peekForViewType(i).isEnabled());
+		}
+		assertEquals(1, mCreatedPlaceholders);
+		//Created placeholders are returned as they are
+		SimpleItem placeholder = mPagedList.peek(3);
+		assertSame(placeholder, mPagedList.peekForViewType(3));
+		assertTrue(mPendingLoads.isEmpty());
+	}
+
+	@Test
+	public void testFailedPageIsRetriedThenMarkedFailed() throws Exception {
+		mFail = true;
+		mPagedList.setRetryPolicy(1, 100L);
+		mPagedList.get(5);
+		runPendingLoads();
+		//Waiting for the retry: the bind doesn't request the page again
+		mPagedList.get(5);
+		assertTrue(mPendingLoads.isEmpty());
+		assertFalse(mPagedList.isFailed(5));
+
+		ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+		assertEquals(1, mPendingLoads.size());
+		runPendingLoads();
+		ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+		assertTrue(mPagedList.isFailed(5));
+		int[] last = mChangedRanges.get(mChangedRanges.size() - 1);
+		assertEquals(0, last[0]);
+		assertEquals(PAGE_SIZE, last[1]);
+		mPagedList.get(5);
+		assertTrue(mPendingLoads.isEmpty());
+
+		mFail = false;
+		mPagedList.retryFailedPages();
+		assertFalse(mPagedList.isFailed(5));
+		mPagedList.get(5);
+		runPendingLoads();
+		assertTrue(mPagedList.isLoaded(5));
+		assertEquals(3, mLoadedPages.size());
+	}
+
+	@Test
+	public void testGetFromBackgroundThreadDoesNotLoad() throws Exception {
+		Thread thread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				mPagedList.get(42);
+			}
+		});
+		thread.start();
+		thread.join();
+		assertTrue(mPendingLoads.isEmpty());
+	}
+
+	@Test
+	public void testEvictionNotifiesAdapter() throws Exception {
+		mPagedList.setMaxResidentPages(2);
+		for (int page = 0; page < 3; page++) {
+			mPagedList.get(page * PAGE_SIZE);
+			runPendingLoads();
+		}
+		//Page 0 evicted by page 2: its positions are placeholders again
+		assertFalse(mPagedList.isLoaded(0));
+		assertTrue(mPagedList.isLoaded(10));
+		assertTrue(mPagedList.isLoaded(20));
+		int[] last = mChangedRanges.get(mChangedRanges.size() - 1);
+		assertEquals(0, last[0]);
+		assertEquals(PAGE_SIZE, last[1]);
+	}
+
+	@Test
+	public void testInvalidateDiscardsPagesInFlight() throws Exception {
+		mPagedList.get(0);
+		mPagedList.invalidate();
+		runPendingLoads();
+		assertFalse(mPagedList.isLoaded(0));
+	}
+
+}
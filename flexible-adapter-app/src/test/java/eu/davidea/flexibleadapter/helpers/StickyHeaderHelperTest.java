@@ -0,0 +1,102 @@
+package eu.davidea.flexibleadapter.helpers;
+
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.List;
+
+import eu.davidea.flexibleadapter.BuildConfig;
+import eu.davidea.flexibleadapter.FlexibleAdapter;
+import eu.davidea.flexibleadapter.items.AbstractFlexibleItem;
+import eu.davidea.samples.flexibleadapter.services.DatabaseService;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Scrolls by large steps and checks the sticky header in the same frame of the scroll.
+ *
+ * @author Davide Steduto
+ * @since 19/10/2016
+ */
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class)
+public class StickyHeaderHelperTest implements FlexibleAdapter.OnStickyHeaderChangeListener {
+
+	static final int WIDTH = 480, HEIGHT = 800;
+
+	FlexibleAdapter<AbstractFlexibleItem> mAdapter;
+	RecyclerView mRecyclerView;
+	LinearLayoutManager mLayoutManager;
+	int mStickyPosition = RecyclerView.NO_POSITION;
+
+	@Override
+	public void onStickyHeaderChange(int sectionIndex) {
+		mStickyPosition = sectionIndex;
+	}
+
+	@Before
+	public void setUp() throws Exception {
+		DatabaseService.getInstance().createHeadersSectionsDatabase();
+		List<AbstractFlexibleItem> items = DatabaseService.getInstance().getDatabaseList();
+		final FrameLayout stickyHolder = new FrameLayout(RuntimeEnvironment.application);
+		stickyHolder.setLayoutParams(new ViewGroup.LayoutParams(WIDTH, ViewGroup.LayoutParams.WRAP_CONTENT));
+		mAdapter = new FlexibleAdapter<AbstractFlexibleItem>(items, this) {
+			@Override
+			public ViewGroup getStickySectionHeadersHolder() {
+				return stickyHolder;
+			}
+		};
+		mAdapter.setDisplayHeadersAtStartUp(true);
+		mRecyclerView = new RecyclerView(RuntimeEnvironment.application);
+		mLayoutManager = new LinearLayoutManager(RuntimeEnvironment.application);
+		mRecyclerView.setLayoutManager(mLayoutManager);
+		mRecyclerView.setAdapter(mAdapter);
+		mAdapter.enableStickyHeaders();
+		layout();
+		//Sticky holder initialized in post
+		ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+	}
+
+	private void layout() {
+		mRecyclerView.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+				View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+		mRecyclerView.layout(0, 0, WIDTH, HEIGHT);
+	}
+
+	/**
+	 * @return the position of the last header before or at the position
+	 */
+	private int getHeaderPositionOf(int position) {
+		for (int i = position; i >= 0; i--) {
+			if (mAdapter.isHeader(mAdapter.getItem(i))) return i;
+		}
+		return RecyclerView.NO_POSITION;
+	}
+
+	@Test
+	public void testStickyHeaderFollowsScrollInSameFrame() throws Exception {
+		int previousFirst = mLayoutManager.findFirstVisibleItemPosition();
+		for (int step = 0; step < 4; step++) {
+			//Each step crosses more than one section
+			mRecyclerView.scrollBy(0, HEIGHT);
+			int first = mLayoutManager.findFirstVisibleItemPosition();
+			assertTrue(first > previousFirst);
+			assertEquals(mAdapter.getFirstVisiblePosition(), first);
+			assertEquals(getHeaderPositionOf(first), mStickyPosition);
+			previousFirst = first;
+		}
+	}
+
+}
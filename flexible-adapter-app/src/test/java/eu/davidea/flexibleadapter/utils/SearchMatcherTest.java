@@ -0,0 +1,95 @@
+package eu.davidea.flexibleadapter.utils;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.Locale;
+
+import eu.davidea.flexibleadapter.BuildConfig;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Davide Steduto
+ * @since 19/10/2016
+ */
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class)
+public class SearchMatcherTest {
+
+	@Test
+	public void testFoldsCaseAndAccents() throws Exception {
+		SearchMatcher matcher = new SearchMatcher("Cafe", Locale.ENGLISH, SearchMatcher.MATCH_CONTAINS);
+		assertTrue(matcher.matches("Le caf\u00e9"));
+		assertTrue(matcher.matches("CAF\u00c9 NOIR"));
+		assertFalse(matcher.matches("Cabinet"));
+	}
+
+	@Test
+	public void testFoldsTurkishI() throws Exception {
+		SearchMatcher turkish = new SearchMatcher("\u0131stanbul", new Locale("tr"), SearchMatcher.MATCH_CONTAINS);
+		assertTrue(turkish.matches("ISTANBUL"));
+		SearchMatcher english = new SearchMatcher("\u0131stanbul", Locale.ENGLISH, SearchMatcher.MATCH_CONTAINS);
+		assertFalse(english.matches("ISTANBUL"));
+	}
+
+	@Test
+	public void testAllTokensInAnyOrder() throws Exception {
+		SearchMatcher matcher = new SearchMatcher("blue  car", Locale.ENGLISH, SearchMatcher.MATCH_CONTAINS);
+		assertEquals(2, matcher.getTokenCount());
+		assertTrue(matcher.matches("A car painted blue"));
+		assertFalse(matcher.matches("A blue bike"));
+	}
+
+	@Test
+	public void testFindMatchesRangesOfOriginalText() throws Exception {
+		SearchMatcher matcher = new SearchMatcher("cafe noir", Locale.ENGLISH, SearchMatcher.MATCH_CONTAINS);
+		int[] ranges = new int[4];
+		assertEquals(2, matcher.findMatches("Un caf\u00e9 noir", ranges));
+		assertEquals(3, ranges[0]);
+		assertEquals(7, ranges[1]);
+		assertEquals(8, ranges[2]);
+		assertEquals(12, ranges[3]);
+		assertEquals(0, matcher.findMatches("Un caf\u00e9", ranges));
+	}
+
+	@Test
+	public void testScoreOrdersPrefixWordContainsFuzzy() throws Exception {
+		SearchMatcher matcher = new SearchMatcher("car", Locale.ENGLISH, SearchMatcher.MATCH_CONTAINS);
+		int prefix = matcher.score("Cargo");
+		int word = matcher.score("Red car");
+		int contains = matcher.score("Oscar");
+		int fuzzy = matcher.score("Clear");
+		assertTrue(prefix > word);
+		assertTrue(word > contains);
+		assertTrue(contains > fuzzy);
+		assertTrue(fuzzy > 0);
+		assertEquals(0, matcher.score("Bike"));
+		//Earlier occurrences score more
+		assertTrue(matcher.score("A car") > matcher.score("A blue car"));
+	}
+
+	@Test
+	public void testPrefixModeIsStrict() throws Exception {
+		SearchMatcher matcher = new SearchMatcher("car", Locale.ENGLISH, SearchMatcher.MATCH_PREFIX);
+		assertTrue(matcher.matches("Red car"));
+		assertFalse(matcher.matches("Oscar"));
+		assertTrue(matcher.score("Red car") > 0);
+		//Neither substrings nor subsequences score
+		assertEquals(0, matcher.score("Oscar"));
+		assertEquals(0, matcher.score("Clear"));
+	}
+
+	@Test
+	public void testEmptyQueryMatchesEverything() throws Exception {
+		SearchMatcher matcher = new SearchMatcher("  ");
+		assertTrue(matcher.isEmpty());
+		assertTrue(matcher.matches("anything"));
+		assertEquals(1, matcher.score("anything"));
+	}
+
+}
@@ -11,10 +11,12 @@ import android.support.annotation.IdRes;
 import android.support.annotation.LayoutRes;
 import android.support.annotation.NonNull;
 import android.support.v4.view.ViewCompat;
+import android.support.v7.widget.GridLayoutManager;
 import android.support.v7.widget.LinearLayoutManager;
 import android.support.v7.widget.RecyclerView;
 import android.support.v7.widget.StaggeredGridLayoutManager;
 import android.util.AttributeSet;
+import android.util.SparseIntArray;
 import android.view.LayoutInflater;
 import android.view.MotionEvent;
 import android.view.View;
@@ -25,9 +27,11 @@ import android.widget.TextView;
 
 import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import eu.davidea.flexibleadapter.R;
+import eu.davidea.flexibleadapter.ViewTypeCounter;
 
 /**
  * Class taken from GitHub, customized and optimized for FlexibleAdapter project.
@@ -49,16 +53,101 @@ public class FastScroller extends FrameLayout {
 	private RecyclerView recyclerView;
 	private RecyclerView.LayoutManager layoutManager;
 	private BubbleTextCreator bubbleTextCreator;
+	private SectionProvider sectionProvider;
+	private ViewTypeProvider viewTypeProvider;
 	private List<OnScrollStateChangeListener> scrollStateChangeListeners = new ArrayList<OnScrollStateChangeListener>();
 
+	//Section jump table: start positions and cached bubble texts, rebuilt after data changes
+	private boolean sectionMode = false;
+	private int[] sectionPositions = new int[16];
+	private String[] sectionLabels = new String[16];
+	private int sectionCount = -1;//-1 = invalid
+	private int lastSection = -1, lastTargetPos = RecyclerView.NO_POSITION;
+	private RecyclerView.Adapter observedAdapter;
+
+	//Height estimation: average height per view type, weighed on the counts per view type.
+	//The view types of the positions are kept in sync with the notified ranges
+	private boolean heightEstimation = false;
+	private SparseIntArray typeIndexes = new SparseIntArray();
+	private float[] typeAverages = new float[8];
+	private int[] typeSamples = new int[8];
+	private float unknownAverage;
+	private final ViewTypeCounter typeCounter = new ViewTypeCounter();
+	private final ViewTypeCounter.Weigher heightWeigher = new ViewTypeCounter.Weigher() {
+		@Override
+		public float weightOf(int viewType) {
+			//Unknown view types are estimated with the average of all types
+			int index = typeIndexes.get(viewType, -1);
+			return index >= 0 ? typeAverages[index] : unknownAverage;
+		}
+	};
+
+	private final RecyclerView.AdapterDataObserver sectionObserver = new RecyclerView.AdapterDataObserver() {
+		@Override
+		public void onChanged() {
+			invalidateSections();
+			typeCounter.invalidate();
+		}
+
+		@Override
+		public void onItemRangeChanged(int positionStart, int itemCount) {
+			updateSections(positionStart, itemCount);
+			if (!typeCounter.isInitialized()) return;
+			for (int position = positionStart; position < positionStart + itemCount && position < typeCounter.size(); position++) {
+				typeCounter.change(position, getViewType(position));
+			}
+		}
+
+		@Override
+		public void onItemRangeInserted(int positionStart, int itemCount) {
+			invalidateSections();
+			if (!typeCounter.isInitialized()) return;
+			if (positionStart > typeCounter.size()) {
+				typeCounter.invalidate();//Out of sync, read again
+				return;
+			}
+			for (int position = positionStart; position < positionStart + itemCount; position++) {
+				typeCounter.insert(position, getViewType(position));
+			}
+		}
+
+		@Override
+		public void onItemRangeRemoved(int positionStart, int itemCount) {
+			invalidateSections();
+			if (!typeCounter.isInitialized()) return;
+			if (positionStart + itemCount > typeCounter.size()) {
+				typeCounter.invalidate();//Out of sync, read again
+				return;
+			}
+			for (int i = 0; i < itemCount; i++) {
+				typeCounter.remove(positionStart);
+			}
+		}
+
+		@Override
+		public void onItemRangeMoved(int fromPosition, int toPosition, int itemCount) {
+			invalidateSections();
+			if (!typeCounter.isInitialized()) return;
+			if (itemCount != 1 || Math.max(fromPosition, toPosition) >= typeCounter.size()) {
+				typeCounter.invalidate();//Read again
+				return;
+			}
+			typeCounter.move(fromPosition, toPosition);
+		}
+	};
+
 	private final RecyclerView.OnScrollListener onScrollListener = new RecyclerView.OnScrollListener() {
 		@Override
 		public void onScrolled(RecyclerView recyclerView, int dx, int dy) {
+			if (heightEstimation) sampleEdgeHeights();
 			if (bubble == null || handle.isSelected())
 				return;
-			int verticalScrollOffset = recyclerView.computeVerticalScrollOffset();
-			int verticalScrollRange = recyclerView.computeVerticalScrollRange();
-			float proportion = (float) verticalScrollOffset / ((float) verticalScrollRange - height);
+			float proportion = getEstimatedProportion();
+			if (proportion < 0) {
+				int verticalScrollOffset = recyclerView.computeVerticalScrollOffset();
+				int verticalScrollRange = recyclerView.computeVerticalScrollRange();
+				proportion = (float) verticalScrollOffset / ((float) verticalScrollRange - height);
+			}
 			setBubbleAndHandlePosition(height * proportion);
 		}
 	};
@@ -97,21 +186,282 @@ public class FastScroller extends FrameLayout {
 			this.bubbleTextCreator = (BubbleTextCreator) recyclerView.getAdapter();
 		if (recyclerView.getAdapter() instanceof OnScrollStateChangeListener)
 			addOnScrollStateChangeListener((OnScrollStateChangeListener) recyclerView.getAdapter());
+		if (recyclerView.getAdapter() instanceof SectionProvider)
+			this.sectionProvider = (SectionProvider) recyclerView.getAdapter();
+		if (recyclerView.getAdapter() instanceof ViewTypeProvider)
+			this.viewTypeProvider = (ViewTypeProvider) recyclerView.getAdapter();
+		observeAdapter(recyclerView.getAdapter());
 
 		this.recyclerView.getViewTreeObserver().addOnPreDrawListener(new ViewTreeObserver.OnPreDrawListener() {
 			@Override
 			public boolean onPreDraw() {
 				FastScroller.this.recyclerView.getViewTreeObserver().removeOnPreDrawListener(this);
 				if (bubble == null || handle.isSelected()) return true;
-				int verticalScrollOffset = FastScroller.this.recyclerView.computeVerticalScrollOffset();
-				int verticalScrollRange = FastScroller.this.computeVerticalScrollRange();
-				float proportion = (float) verticalScrollOffset / ((float) verticalScrollRange - height);
+				float proportion = getEstimatedProportion();
+				if (proportion < 0) {
+					int verticalScrollOffset = FastScroller.this.recyclerView.computeVerticalScrollOffset();
+					int verticalScrollRange = FastScroller.this.computeVerticalScrollRange();
+					proportion = (float) verticalScrollOffset / ((float) verticalScrollRange - height);
+				}
 				setBubbleAndHandlePosition(height * proportion);
 				return true;
 			}
 		});
 	}
 
+	/**
+	 * Section mode: dragging the handle snaps to the first item of the sections, and the bubble
+	 * shows the text of the section. The sections are the positions indicated by the
+	 * {@link SectionProvider} (ex. the headers of FlexibleAdapter), their text is created only
+	 * once, with the {@link BubbleTextCreator}, at the first drag after each data change.
+	 * <p>With less than 2 sections the dragging scrolls to any item, as without section mode.</p>
+	 * Default value is false.
+	 *
+	 * @param enabled true to snap to the sections, false to scroll to any item
+	 */
+	public void setSectionMode(boolean enabled) {
+		sectionMode = enabled;
+		invalidateSections();
+	}
+
+	public boolean isSectionMode() {
+		return sectionMode;
+	}
+
+	private void observeAdapter(RecyclerView.Adapter adapter) {
+		if (observedAdapter == adapter) return;
+		if (observedAdapter != null) observedAdapter.unregisterAdapterDataObserver(sectionObserver);
+		observedAdapter = adapter;
+		if (observedAdapter != null) observedAdapter.registerAdapterDataObserver(sectionObserver);
+		invalidateSections();
+		typeCounter.invalidate();
+	}
+
+	private void invalidateSections() {
+		sectionCount = -1;
+		lastSection = -1;
+		lastTargetPos = RecyclerView.NO_POSITION;
+	}
+
+	/**
+	 * Updates the jump table for the changed items: only the labels are refreshed, unless a
+	 * section start has been added or removed.
+	 */
+	private void updateSections(int positionStart, int itemCount) {
+		if (sectionCount < 0 || sectionProvider == null || bubbleTextCreator == null) return;
+		int end = Math.min(positionStart + itemCount, recyclerView.getAdapter().getItemCount());
+		for (int position = positionStart; position < end; position++) {
+			int section = Arrays.binarySearch(sectionPositions, 0, sectionCount, position);
+			boolean sectionStart = position == 0 || sectionProvider.isSectionStart(position);
+			if (sectionStart != section >= 0) {
+				invalidateSections();
+				return;
+			}
+			if (sectionStart) sectionLabels[section] = bubbleTextCreator.onCreateBubbleText(position);
+		}
+		lastSection = -1;//Refresh the bubble text
+	}
+
+	/**
+	 * Builds the jump table: a leading section is added if the first item is not a section start.
+	 */
+	private void ensureSections() {
+		if (sectionCount >= 0) return;
+		sectionCount = 0;
+		if (sectionProvider == null || bubbleTextCreator == null) return;
+		int itemCount = recyclerView.getAdapter().getItemCount();
+		for (int position = 0; position < itemCount; position++) {
+			if (position > 0 && !sectionProvider.isSectionStart(position)) continue;
+			if (sectionCount == sectionPositions.length) {
+				int[] positions = new int[sectionCount * 2];
+				String[] labels = new String[sectionCount * 2];
+				System.arraycopy(sectionPositions, 0, positions, 0, sectionCount);
+				System.arraycopy(sectionLabels, 0, labels, 0, sectionCount);
+				sectionPositions = positions;
+				sectionLabels = labels;
+			}
+			sectionPositions[sectionCount] = position;
+			sectionLabels[sectionCount] = bubbleTextCreator.onCreateBubbleText(position);
+			sectionCount++;
+		}
+	}
+
+	/**
+	 * @return the index of the section containing the position
+	 */
+	private int getSectionOf(int position) {
+		int low = 0, high = sectionCount - 1, section = 0;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			if (sectionPositions[mid] <= position) {
+				section = mid;
+				low = mid + 1;
+			} else {
+				high = mid - 1;
+			}
+		}
+		return section;
+	}
+
+	/**
+	 * Height estimation for lists with variable heights (headers, rows, expanded children):
+	 * the average height of each view type is learned from the items laid out while scrolling,
+	 * and the estimated offset of a position is the sum of the averages weighed on the counts
+	 * per view type before it. Both the handle position and the drag-to-position mapping are
+	 * then proportional to the estimated pixels, not to the number of items, so the handle
+	 * doesn't jump between sections of different heights.
+	 * <p><b>Note:</b> This setting applies only to a vertical {@link LinearLayoutManager}:
+	 * with any other LayoutManager, including {@link GridLayoutManager} and
+	 * {@link StaggeredGridLayoutManager}, and with a horizontal orientation, it is ignored and
+	 * the default scroll range of the RecyclerView is used.</p>
+	 * The view types of all positions are read once, then they are updated only for the
+	 * notified ranges; an Adapter implementing {@link ViewTypeProvider} can supply them
+	 * without side effects (ex. without loading the pages of a paged list). The counts per
+	 * view type are kept by blocks of positions, so a new average height or a notification
+	 * never rebuilds the whole list.
+	 * <p>Default value is false.</p>
+	 *
+	 * @param enabled true to estimate the heights, false to use the RecyclerView scroll range
+	 */
+	public void setHeightEstimation(boolean enabled) {
+		heightEstimation = enabled;
+		typeIndexes.clear();
+		typeCounter.invalidate();
+	}
+
+	public boolean isHeightEstimation() {
+		return heightEstimation;
+	}
+
+	private boolean canEstimateHeights() {
+		return heightEstimation && recyclerView != null && typeIndexes.size() > 0 &&
+				layoutManager instanceof LinearLayoutManager && !(layoutManager instanceof GridLayoutManager) &&
+				((LinearLayoutManager) layoutManager).getOrientation() == LinearLayoutManager.VERTICAL;
+	}
+
+	/**
+	 * Learns the heights of the first and the last child: new items always enter at the edges.
+	 */
+	private void sampleEdgeHeights() {
+		int childCount = recyclerView.getChildCount();
+		if (childCount == 0) return;
+		if (typeIndexes.size() == 0) {
+			//First time: learn from all the children
+			for (int i = 0; i < childCount; i++) {
+				sampleHeight(recyclerView.getChildAt(i));
+			}
+		} else {
+			sampleHeight(recyclerView.getChildAt(0));
+			if (childCount > 1) sampleHeight(recyclerView.getChildAt(childCount - 1));
+		}
+	}
+
+	private void sampleHeight(View child) {
+		RecyclerView.ViewHolder holder = recyclerView.getChildViewHolder(child);
+		if (holder == null || layoutManager == null) return;
+		int viewType = holder.getItemViewType();
+		int index = typeIndexes.get(viewType, -1);
+		if (index < 0) {
+			index = typeIndexes.size();
+			typeIndexes.put(viewType, index);
+			if (index == typeAverages.length) {
+				int length = index * 2;
+				float[] averages = new float[length];
+				int[] samples = new int[length];
+				System.arraycopy(typeAverages, 0, averages, 0, index);
+				System.arraycopy(typeSamples, 0, samples, 0, index);
+				typeAverages = averages;
+				typeSamples = samples;
+			}
+			typeAverages[index] = 0;
+			typeSamples[index] = 0;
+		}
+		//Running average, the last samples weigh at least 1%
+		int samples = Math.min(typeSamples[index] + 1, 100);
+		typeSamples[index] = samples;
+		typeAverages[index] += (getItemHeight(child) - typeAverages[index]) / samples;
+	}
+
+	private int getItemHeight(View child) {
+		RecyclerView.LayoutParams params = (RecyclerView.LayoutParams) child.getLayoutParams();
+		return layoutManager.getDecoratedBottom(child) - layoutManager.getDecoratedTop(child) +
+				params.topMargin + params.bottomMargin;
+	}
+
+	private int getViewType(int position) {
+		return viewTypeProvider != null ? viewTypeProvider.peekItemViewType(position) :
+				recyclerView.getAdapter().getItemViewType(position);
+	}
+
+	/**
+	 * Reads the view types of all positions only the first time and after a full data change,
+	 * then updates the average of the unknown view types.
+	 */
+	private void ensureTypeCounter() {
+		int itemCount = recyclerView.getAdapter().getItemCount();
+		if (!typeCounter.isInitialized() || typeCounter.size() != itemCount) {
+			int[] types = new int[itemCount];
+			for (int position = 0; position < itemCount; position++) {
+				types[position] = getViewType(position);
+			}
+			typeCounter.init(types, itemCount);
+		}
+		float sum = 0;
+		int count = typeIndexes.size();
+		for (int i = 0; i < count; i++) {
+			sum += typeAverages[i];
+		}
+		unknownAverage = count > 0 ? sum / count : 0;
+	}
+
+	/**
+	 * @return the estimated offset of the position, from the top of the list
+	 */
+	private int getEstimatedOffset(int position) {
+		return Math.round(typeCounter.weightUntil(position, heightWeigher));
+	}
+
+	/**
+	 * @return the estimated height of the items that can be scrolled
+	 */
+	private int getEstimatedScrollRange() {
+		int visibleHeight = recyclerView.getHeight() - recyclerView.getPaddingTop() - recyclerView.getPaddingBottom();
+		return getEstimatedOffset(typeCounter.size()) - visibleHeight;
+	}
+
+	/**
+	 * @return the proportion of the estimated scrolled pixels, -1 if the estimation is not available
+	 */
+	private float getEstimatedProportion() {
+		if (!canEstimateHeights() || recyclerView.getChildCount() == 0) return -1;
+		ensureTypeCounter();
+		View firstChild = recyclerView.getChildAt(0);
+		int position = recyclerView.getChildAdapterPosition(firstChild);
+		int range = getEstimatedScrollRange();
+		if (position == RecyclerView.NO_POSITION || position >= typeCounter.size() || range <= 0) return -1;
+		RecyclerView.LayoutParams params = (RecyclerView.LayoutParams) firstChild.getLayoutParams();
+		int hidden = recyclerView.getPaddingTop() - (layoutManager.getDecoratedTop(firstChild) - params.topMargin);
+		float offset = getEstimatedOffset(position) + hidden;
+		return Math.max(0f, Math.min(1f, offset / range));
+	}
+
+	/**
+	 * Scrolls to the estimated pixel offset corresponding to the proportion.
+	 *
+	 * @return the target position, -1 if the estimation is not available
+	 */
+	private int setEstimatedRecyclerViewPosition(float proportion, boolean scroll) {
+		if (!canEstimateHeights()) return -1;
+		ensureTypeCounter();
+		int range = getEstimatedScrollRange();
+		if (typeCounter.size() == 0 || range <= 0) return -1;
+		int targetOffset = (int) (proportion * range);
+		//Last position with offset <= target offset
+		int targetPos = typeCounter.positionOfWeight(targetOffset, heightWeigher);
+		if (scroll) scrollToPositionWithOffset(targetPos, getEstimatedOffset(targetPos) - targetOffset);
+		return targetPos;
+	}
+
 	public void addOnScrollStateChangeListener(OnScrollStateChangeListener stateChangeListener) {
 		if (stateChangeListener != null && !scrollStateChangeListeners.contains(stateChangeListener))
 			scrollStateChangeListeners.add(stateChangeListener);
@@ -210,6 +560,7 @@ public class FastScroller extends FrameLayout {
 				if (event.getX() < handle.getX() - ViewCompat.getPaddingStart(handle)) return false;
 				if (currentAnimator != null) currentAnimator.cancel();
 				handle.setSelected(true);
+				lastSection = -1;
 				notifyScrollStateChange(true);
 				showBubble();
 			case MotionEvent.ACTION_MOVE:
@@ -232,6 +583,7 @@ public class FastScroller extends FrameLayout {
 		super.onDetachedFromWindow();
 		if (recyclerView != null)
 			recyclerView.removeOnScrollListener(onScrollListener);
+		observeAdapter(null);
 	}
 
 	private void setRecyclerViewPosition(float y) {
@@ -246,13 +598,25 @@ public class FastScroller extends FrameLayout {
 			} else {
 				proportion = y / (float) height;
 			}
-			int targetPos = getValueInRange(0, itemCount - 1, (int) (proportion * (float) itemCount));
-			//Scroll To Position based on LayoutManager
-			if (layoutManager instanceof StaggeredGridLayoutManager) {
-				((StaggeredGridLayoutManager) layoutManager).scrollToPositionWithOffset(targetPos, 0);
-			} else {
-				((LinearLayoutManager) layoutManager).scrollToPositionWithOffset(targetPos, 0);
+			boolean sections = false;
+			if (sectionMode) {
+				ensureSections();
+				//The leading section is always present: without a real section start, every
+				//drag would snap to the top, so the positions are scrolled normally
+				sections = sectionCount > 1;
+			}
+			//Target position from the estimated heights, or proportional to the items
+			int targetPos = setEstimatedRecyclerViewPosition(proportion, !sections);
+			boolean estimated = targetPos >= 0;
+			if (!estimated) {
+				targetPos = getValueInRange(0, itemCount - 1, (int) (proportion * (float) itemCount));
 			}
+			if (sections) {
+				setRecyclerViewSection(getSectionOf(targetPos));
+				return;
+			}
+			//Scroll To Position based on LayoutManager
+			if (!estimated) scrollToPositionWithOffset(targetPos, 0);
 			//Update bubbleText
 			if (bubble != null) {
 				String bubbleText = bubbleTextCreator.onCreateBubbleText(targetPos);
@@ -266,6 +630,35 @@ public class FastScroller extends FrameLayout {
 		}
 	}
 
+	/**
+	 * Scrolls to the start of the section and shows its cached text, only if the section changed.
+	 */
+	private void setRecyclerViewSection(int section) {
+		int targetPos = sectionPositions[section];
+		if (targetPos != lastTargetPos) {
+			lastTargetPos = targetPos;
+			scrollToPositionWithOffset(targetPos, 0);
+		}
+		if (bubble != null && section != lastSection) {
+			lastSection = section;
+			String bubbleText = sectionLabels[section];
+			if (bubbleText != null) {
+				bubble.setVisibility(View.VISIBLE);
+				bubble.setText(bubbleText);
+			} else {
+				bubble.setVisibility(View.GONE);
+			}
+		}
+	}
+
+	private void scrollToPositionWithOffset(int targetPos, int offset) {
+		if (layoutManager instanceof StaggeredGridLayoutManager) {
+			((StaggeredGridLayoutManager) layoutManager).scrollToPositionWithOffset(targetPos, offset);
+		} else {
+			((LinearLayoutManager) layoutManager).scrollToPositionWithOffset(targetPos, offset);
+		}
+	}
+
 	private static int getValueInRange(int min, int max, int value) {
 		int minimum = Math.max(min, value);
 		return Math.min(minimum, max);
@@ -318,6 +711,35 @@ public class FastScroller extends FrameLayout {
 		String onCreateBubbleText(int pos);
 	}
 
+	/**
+	 * Indicates the sections of the list for the section mode.
+	 *
+	 * @see #setSectionMode(boolean)
+	 */
+	public interface SectionProvider {
+		/**
+		 * Called for all the positions when the sections are scanned: the implementation
+		 * should not load the items that are not in memory.
+		 *
+		 * @param position the adapter position
+		 * @return true if the item at the position is the first of a section, ex. a header
+		 */
+		boolean isSectionStart(int position);
+	}
+
+	/**
+	 * Provides the view types for the height estimation.
+	 *
+	 * @see #setHeightEstimation(boolean)
+	 */
+	public interface ViewTypeProvider {
+		/**
+		 * @param position the adapter position
+		 * @return the view type of the position, without side effects like loading its data
+		 */
+		int peekItemViewType(int position);
+	}
+
 	public interface OnScrollStateChangeListener {
 		/**
 		 * Called when scrolling state changes.
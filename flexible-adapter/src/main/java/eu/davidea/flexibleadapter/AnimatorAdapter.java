@@ -18,20 +18,26 @@ package eu.davidea.flexibleadapter;
 import android.animation.Animator;
 import android.animation.AnimatorSet;
 import android.animation.ObjectAnimator;
+import android.annotation.TargetApi;
+import android.os.Build;
 import android.os.Handler;
 import android.os.Looper;
 import android.os.Message;
+import android.os.SystemClock;
 import android.support.annotation.FloatRange;
 import android.support.annotation.IntRange;
 import android.support.annotation.NonNull;
 import android.support.v4.view.ViewCompat;
+import android.support.v4.view.ViewPropertyAnimatorCompat;
+import android.support.v4.view.ViewPropertyAnimatorListener;
 import android.support.v7.widget.GridLayoutManager;
 import android.support.v7.widget.LinearLayoutManager;
 import android.support.v7.widget.RecyclerView;
 import android.support.v7.widget.StaggeredGridLayoutManager;
 import android.util.Log;
-import android.util.SparseArray;
+import android.view.Choreographer;
 import android.view.View;
+import android.view.animation.AccelerateDecelerateInterpolator;
 import android.view.animation.Interpolator;
 import android.view.animation.LinearInterpolator;
 
@@ -39,6 +45,8 @@ import java.util.ArrayList;
 import java.util.EnumSet;
 import java.util.List;
 
+import eu.davidea.flexibleadapter.utils.Utils;
+
 /**
  * This class is responsible to animate items. Bounded items are animated initially and also
  * when user starts to scroll the list.
@@ -63,10 +71,14 @@ public abstract class AnimatorAdapter extends SelectableAdapter {
 		ALPHA, SLIDE_IN_LEFT, SLIDE_IN_RIGHT, SLIDE_IN_BOTTOM, SLIDE_IN_TOP, SCALE
 	}
 
+	/* Slots of the reusable animators of an ItemView */
+	private static final int SLOT_ALPHA = 0, SLOT_TRANSLATION_X = 1, SLOT_TRANSLATION_Y = 2,
+			SLOT_SCALE_X = 3, SLOT_SCALE_Y = 4, SLOT_COUNT = 5;
+
 	/**
-	 * The active Animators. Keys are hash codes of the Views that are animated.
+	 * Reusable list returned by the default {@link #getAnimators(View, int, boolean)}.
 	 */
-	private final SparseArray<Animator> mAnimators = new SparseArray<>();
+	private final List<Animator> mAnimatorList = new ArrayList<Animator>();
 
 	/**
 	 * The position of the last item that was animated.
@@ -84,12 +96,29 @@ public abstract class AnimatorAdapter extends SelectableAdapter {
 	private EnumSet<AnimatorEnum> animatorsUsed = EnumSet.noneOf(AnimatorEnum.class);
 
 	private boolean isReverseEnabled = false, shouldAnimate = true,
-			isFastScroll = false, isInitialize = false;
+			isFastScroll = false, isInitialize = false, isPropertyAnimation = false;
 
 	private long mInitialDelay = 0L,
 			mStepDelay = 100L,
 			mDuration = 300L;
 
+	/* Scroll velocity (pixels per second) and animation throttling */
+	private static final int ANIMATION_FULL = 0, ANIMATION_DEGRADED = 1, ANIMATION_SKIPPED = 2;
+	private final RecyclerView.OnScrollListener mAnimatorScrollListener = new AnimatorScrollListener();
+	private float mScrollVelocity = 0f;
+	private long mLastScrollTime = 0L, mFrameBudget = 0L;
+	private int mDegradeVelocity = 0, mSkipVelocity = 0;//dp per second, 0 = disabled
+	private boolean isOverFrameBudget = false;
+	//Measures the real frame durations while scrolling, API 16+
+	private FrameBudgetCallback mFrameBudgetCallback;
+
+	/* Visible range, refreshed by the scroll callbacks and shared with the sticky headers */
+	private int mFirstVisiblePosition = RecyclerView.NO_POSITION,
+			mFirstCompletelyVisiblePosition = RecyclerView.NO_POSITION,
+			mLastCompletelyVisiblePosition = RecyclerView.NO_POSITION,
+			mVisibleRangeChildCount = -1;//-1 = invalid
+	private int[] mSpanPositions;//Reused with StaggeredGridLayoutManager
+
 	/*--------------*/
 	/* CONSTRUCTORS */
 	/*--------------*/
@@ -211,12 +240,187 @@ public abstract class AnimatorAdapter extends SelectableAdapter {
 		return isReverseEnabled;
 	}
 
+	/**
+	 * Executes the built-in animators with a {@link android.view.ViewPropertyAnimator} on a
+	 * hardware layer ({@code withLayer()}), instead of an {@link AnimatorSet} of reflection
+	 * based ObjectAnimators. The animations are then applied by the RenderThread and stay
+	 * smooth even when the UI thread is busy binding the next items. Start delays are the same.
+	 * <p>A list containing custom Animators, not created by the {@code add...Animator()}
+	 * methods, is still executed with an AnimatorSet.</p>
+	 * Default disabled.
+	 *
+	 * @param enabled true to animate with ViewPropertyAnimator, false to use AnimatorSet
+	 * @return this AnimatorAdapter, so the call can be chained
+	 * @see #getAnimators(View, int, boolean)
+	 */
+	public AnimatorAdapter setAnimationWithLayer(boolean enabled) {
+		isPropertyAnimation = enabled;
+		return this;
+	}
+
+	public boolean isAnimationWithLayer() {
+		return isPropertyAnimation;
+	}
+
+	/**
+	 * Throttles the animations depending on the scroll velocity: above the degrade velocity the
+	 * items are animated without staggering and in half of the duration, above the skip
+	 * velocity the items are not animated. Animations are fully restored when the scrolling
+	 * settles.
+	 * <p>Default values are 0 (disabled): the throttling is opt-in. Sensible values are
+	 * 3000dp/s and 6000dp/s. Use 0 to disable a threshold.</p>
+	 *
+	 * @param degradeVelocity the velocity in dp per second above which animations are shortened
+	 * @param skipVelocity    the velocity in dp per second above which animations are skipped
+	 * @return this AnimatorAdapter, so the call can be chained
+	 * @see #setAnimationFrameBudget(long)
+	 */
+	public AnimatorAdapter setAnimationVelocityThresholds(@IntRange(from = 0) int degradeVelocity,
+														  @IntRange(from = 0) int skipVelocity) {
+		mDegradeVelocity = Math.max(0, degradeVelocity);
+		mSkipVelocity = Math.max(0, skipVelocity);
+		return this;
+	}
+
+	/**
+	 * Skips the animations when a frame of the scrolling exceeds the given time, until the
+	 * scrolling settles: the animations of the new items would make the next frames even slower.
+	 * <p>The frame durations are measured with {@link Choreographer} callbacks, so they are
+	 * the real intervals between the rendered frames. Requires API 16, ignored on older
+	 * devices.</p>
+	 * <p>Default value is 0 (disabled), a sensible value is 32ms (2 frames at 60fps).</p>
+	 *
+	 * @param budget the maximum time of a frame in milliseconds, 0 to disable
+	 * @return this AnimatorAdapter, so the call can be chained
+	 * @see #setAnimationVelocityThresholds(int, int)
+	 */
+	public AnimatorAdapter setAnimationFrameBudget(@IntRange(from = 0) long budget) {
+		mFrameBudget = Math.max(0L, budget);
+		if (mFrameBudget == 0L) stopFrameBudgetCallback();
+		return this;
+	}
+
 	@Override
 	public void onFastScrollerStateChange(boolean scrolling) {
 		super.onFastScrollerStateChange(scrolling);
 		isFastScroll = scrolling;
 	}
 
+	@Override
+	public void onAttachedToRecyclerView(RecyclerView recyclerView) {
+		super.onAttachedToRecyclerView(recyclerView);
+		recyclerView.addOnScrollListener(mAnimatorScrollListener);
+		mVisibleRangeChildCount = -1;
+	}
+
+	@Override
+	public void onDetachedFromRecyclerView(RecyclerView recyclerView) {
+		recyclerView.removeOnScrollListener(mAnimatorScrollListener);
+		stopFrameBudgetCallback();
+		mScrollVelocity = 0f;
+		isOverFrameBudget = false;
+		mVisibleRangeChildCount = -1;
+		super.onDetachedFromRecyclerView(recyclerView);
+	}
+
+	private void startFrameBudgetCallback() {
+		if (mFrameBudget <= 0 || !Utils.hasJellyBean()) return;
+		if (mFrameBudgetCallback == null) mFrameBudgetCallback = new FrameBudgetCallback();
+		mFrameBudgetCallback.start();
+	}
+
+	private void stopFrameBudgetCallback() {
+		if (mFrameBudgetCallback != null) mFrameBudgetCallback.stop();
+	}
+
+	/**
+	 * Called at each scroll frame, right after the visible range has been refreshed: the
+	 * components depending on the visible range of the current frame are updated here.
+	 */
+	void onScrolledVisibleRange() {
+	}
+
+	/**
+	 * @return the current scroll velocity in pixels per second along the scrolling orientation,
+	 * negative when scrolling backward, 0 when idle
+	 */
+	float getScrollVelocity() {
+		return mScrollVelocity;
+	}
+
+	/**
+	 * The visible range is refreshed once per frame by the scroll callbacks and, when the list
+	 * is idle, each time the number of children changes (initial loading, notifications).
+	 * While scrolling, this method is then O(1) and doesn't allocate.
+	 *
+	 * @return the adapter position of the first child View, partially or completely visible,
+	 * {@link RecyclerView#NO_POSITION} if there are no children
+	 */
+	public int getFirstVisiblePosition() {
+		ensureVisibleRange();
+		return mFirstVisiblePosition;
+	}
+
+	/**
+	 * @return the adapter position of the first completely visible item
+	 * @see #getFirstVisiblePosition()
+	 */
+	public int getFirstCompletelyVisiblePosition() {
+		ensureVisibleRange();
+		return mFirstCompletelyVisiblePosition;
+	}
+
+	/**
+	 * @return the adapter position of the last completely visible item
+	 * @see #getFirstVisiblePosition()
+	 */
+	public int getLastCompletelyVisiblePosition() {
+		ensureVisibleRange();
+		return mLastCompletelyVisiblePosition;
+	}
+
+	private void ensureVisibleRange() {
+		if (mRecyclerView == null) return;
+		if (mVisibleRangeChildCount < 0 ||
+				(mRecyclerView.getScrollState() == RecyclerView.SCROLL_STATE_IDLE &&
+						mVisibleRangeChildCount != mRecyclerView.getChildCount())) {
+			updateVisibleRange();
+		}
+	}
+
+	private void updateVisibleRange() {
+		RecyclerView.LayoutManager layoutManager = mRecyclerView.getLayoutManager();
+		int childCount = mRecyclerView.getChildCount();
+		if (layoutManager instanceof LinearLayoutManager) {
+			LinearLayoutManager linearLayout = (LinearLayoutManager) layoutManager;
+			mFirstCompletelyVisiblePosition = linearLayout.findFirstCompletelyVisibleItemPosition();
+			mLastCompletelyVisiblePosition = linearLayout.findLastCompletelyVisibleItemPosition();
+			mFirstVisiblePosition = childCount > 0 ?
+					mRecyclerView.getChildAdapterPosition(mRecyclerView.getChildAt(0)) : RecyclerView.NO_POSITION;
+		} else if (layoutManager instanceof StaggeredGridLayoutManager) {
+			StaggeredGridLayoutManager staggeredGridLayout = (StaggeredGridLayoutManager) layoutManager;
+			if (mSpanPositions == null || mSpanPositions.length != staggeredGridLayout.getSpanCount())
+				mSpanPositions = new int[staggeredGridLayout.getSpanCount()];
+			mLastCompletelyVisiblePosition = staggeredGridLayout.findLastCompletelyVisibleItemPositions(mSpanPositions)[0];
+			mFirstCompletelyVisiblePosition = staggeredGridLayout.findFirstCompletelyVisibleItemPositions(mSpanPositions)[0];
+			//Spans are not in adapter order: the first visible is the minimum among all spans
+			staggeredGridLayout.findFirstVisibleItemPositions(mSpanPositions);
+			mFirstVisiblePosition = RecyclerView.NO_POSITION;
+			for (int spanPosition : mSpanPositions) {
+				if (spanPosition != RecyclerView.NO_POSITION &&
+						(mFirstVisiblePosition == RecyclerView.NO_POSITION || spanPosition < mFirstVisiblePosition))
+					mFirstVisiblePosition = spanPosition;
+			}
+		} else {
+			mFirstVisiblePosition = childCount > 0 ?
+					mRecyclerView.getChildAdapterPosition(mRecyclerView.getChildAt(0)) : RecyclerView.NO_POSITION;
+		}
+		//Save max child count reached
+		if (mMaxChildViews < childCount)
+			mMaxChildViews = childCount;
+		mVisibleRangeChildCount = childCount;
+	}
+
 	/*--------------*/
 	/* MAIN METHODS */
 	/*--------------*/
@@ -229,7 +433,10 @@ public abstract class AnimatorAdapter extends SelectableAdapter {
 	 * <br/>- You can also use {@link #getItemViewType(int)} to apply different Animation for
 	 * each view type.
 	 * <br/>- If you want to apply same animation for all items, create new list at class level
-	 * and initialize it in the constructor, not inside this method!</p>
+	 * and initialize it in the constructor, not inside this method!
+	 * <br/>- The default implementation returns an empty reusable list: call
+	 * {@code super.getAnimators()} and the {@code add...Animator()} methods to not allocate
+	 * new Animators once the ItemView has been animated the first time.</p>
 	 *
 	 * @param itemView   the bounded ItemView
 	 * @param position   position can be used to differentiate the list of Animators
@@ -239,16 +446,20 @@ public abstract class AnimatorAdapter extends SelectableAdapter {
 	 * @see #getItemViewType(int)
 	 */
 	public List<Animator> getAnimators(View itemView, int position, boolean isSelected) {
-		return new ArrayList<Animator>();
+		mAnimatorList.clear();
+		return mAnimatorList;
 	}
 
 	/**
-	 * Cancels any existing animations for given View. Useful when fling.
+	 * @return the reusable animators of the ItemView, kept in its tag
 	 */
-	private void cancelExistingAnimation(@NonNull final View itemView) {
-		int hashCode = itemView.hashCode();
-		Animator animator = mAnimators.get(hashCode);
-		if (animator != null) animator.end();
+	private ViewAnimators getViewAnimators(@NonNull View itemView) {
+		ViewAnimators viewAnimators = (ViewAnimators) itemView.getTag(R.id.flexible_view_animators);
+		if (viewAnimators == null) {
+			viewAnimators = new ViewAnimators(itemView);
+			itemView.setTag(R.id.flexible_view_animators, viewAnimators);
+		}
+		return viewAnimators;
 	}
 
 	/**
@@ -268,11 +479,18 @@ public abstract class AnimatorAdapter extends SelectableAdapter {
 //					+ (!isReverseEnabled ? " Pos>AniPos=" + (position > mLastAnimatedPosition) : "")
 //			);
 
-		if (shouldAnimate && !isFastScroll && !mAnimatorNotifierObserver.isPositionNotified() &&
+		int throttle = getAnimationThrottle();
+		if (throttle == ANIMATION_SKIPPED) {
+			//Show immediately a recycled View that was still animating
+			ViewAnimators viewAnimators = (ViewAnimators) itemView.getTag(R.id.flexible_view_animators);
+			if (viewAnimators != null) viewAnimators.end();
+
+		} else if (shouldAnimate && !isFastScroll && !mAnimatorNotifierObserver.isPositionNotified() &&
 				(isReverseEnabled || position > mLastAnimatedPosition || (position == 0 && mRecyclerView.getChildCount() == 0))) {
 
 			//Cancel animation is necessary when fling
-			cancelExistingAnimation(itemView);
+			ViewAnimators viewAnimators = getViewAnimators(itemView);
+			viewAnimators.end();
 
 			//Retrieve user animators
 			List<Animator> animators = getAnimators(itemView, position, isSelected);
@@ -287,17 +505,24 @@ public abstract class AnimatorAdapter extends SelectableAdapter {
 			//Clear animators since the new item might have different animations
 			animatorsUsed.clear();
 
-			//Execute the animations all together
-			AnimatorSet set = new AnimatorSet();
-			set.playTogether(animators);
 			//TODO: Animate with Solution 1 or 2?
-			//set.setStartDelay(calculateAnimationDelay1(position));
-			set.setStartDelay(calculateAnimationDelay2(position));
-			set.setInterpolator(mInterpolator);
-			set.setDuration(mDuration);
-			set.addListener(new HelperAnimatorListener(itemView.hashCode()));
-			set.start();
-			mAnimators.put(itemView.hashCode(), set);
+			//long delay = calculateAnimationDelay1(position);
+			long delay = calculateAnimationDelay2(position);
+			long duration = mDuration;
+			if (throttle == ANIMATION_DEGRADED) {
+				delay = 0L;
+				duration = mDuration / 2;
+			}
+
+			//Execute the animations all together, with a layer or reusing the set if possible
+			if (!isPropertyAnimation ||
+					!viewAnimators.animateWithLayer(animators, delay, mInterpolator, duration)) {
+				AnimatorSet set = viewAnimators.getAnimatorSet(animators);
+				set.setStartDelay(delay);
+				set.setInterpolator(mInterpolator);
+				set.setDuration(duration);
+				set.start();
+			}
 		}
 
 		if (mAnimatorNotifierObserver.isPositionNotified())
@@ -306,26 +531,27 @@ public abstract class AnimatorAdapter extends SelectableAdapter {
 		mLastAnimatedPosition = position;
 	}
 
+	/**
+	 * @return the level of animation allowed by the current scroll velocity and frame time
+	 */
+	private int getAnimationThrottle() {
+		if (isOverFrameBudget) return ANIMATION_SKIPPED;
+		if (mScrollVelocity == 0f) return ANIMATION_FULL;
+		float velocity = Math.abs(mScrollVelocity) / mRecyclerView.getResources().getDisplayMetrics().density;
+		if (mSkipVelocity > 0 && velocity > mSkipVelocity) return ANIMATION_SKIPPED;
+		if (mDegradeVelocity > 0 && velocity > mDegradeVelocity) return ANIMATION_DEGRADED;
+		return ANIMATION_FULL;
+	}
+
 	/**
 	 * Solution 1.
 	 * Reset stepDelay.
 	 */
 	private long calculateAnimationDelay1(int position) {
-		RecyclerView.LayoutManager layoutManager = mRecyclerView.getLayoutManager();
-		int lastVisiblePosition, firstVisiblePosition;
-		if (layoutManager instanceof LinearLayoutManager) {
-			LinearLayoutManager linearLayout = (LinearLayoutManager) layoutManager;
-			lastVisiblePosition = linearLayout.findLastCompletelyVisibleItemPosition();
-			firstVisiblePosition = linearLayout.findFirstCompletelyVisibleItemPosition();
-		} else {
-			StaggeredGridLayoutManager staggeredGridLayout = (StaggeredGridLayoutManager) layoutManager;
-			lastVisiblePosition = staggeredGridLayout.findLastCompletelyVisibleItemPositions(null)[0];
-			firstVisiblePosition = staggeredGridLayout.findFirstCompletelyVisibleItemPositions(null)[0];
-		}
-
-		//Use always the max child count reached
-		if (mMaxChildViews < mRecyclerView.getChildCount())
-			mMaxChildViews = mRecyclerView.getChildCount();
+		//Also saves the max child count reached
+		ensureVisibleRange();
+		int lastVisiblePosition = mLastCompletelyVisiblePosition,
+				firstVisiblePosition = mFirstCompletelyVisiblePosition;
 
 		if (mLastAnimatedPosition > lastVisiblePosition)
 			lastVisiblePosition = mLastAnimatedPosition;
@@ -355,17 +581,10 @@ public abstract class AnimatorAdapter extends SelectableAdapter {
 	 */
 	private long calculateAnimationDelay2(int position) {
 		long delay;
-		RecyclerView.LayoutManager layoutManager = mRecyclerView.getLayoutManager();
-		int lastVisiblePosition, firstVisiblePosition;
-		if (layoutManager instanceof LinearLayoutManager) {
-			LinearLayoutManager linearLayout = (LinearLayoutManager) layoutManager;
-			lastVisiblePosition = linearLayout.findLastCompletelyVisibleItemPosition();
-			firstVisiblePosition = linearLayout.findFirstCompletelyVisibleItemPosition();
-		} else {
-			StaggeredGridLayoutManager staggeredGridLayout = (StaggeredGridLayoutManager) layoutManager;
-			lastVisiblePosition = staggeredGridLayout.findLastCompletelyVisibleItemPositions(null)[0];
-			firstVisiblePosition = staggeredGridLayout.findFirstCompletelyVisibleItemPositions(null)[0];
-		}
+		//Also saves the max child count reached
+		ensureVisibleRange();
+		int lastVisiblePosition = mLastCompletelyVisiblePosition,
+				firstVisiblePosition = mFirstCompletelyVisiblePosition;
 
 		if (mLastAnimatedPosition > lastVisiblePosition)
 			lastVisiblePosition = mLastAnimatedPosition;
@@ -373,10 +592,6 @@ public abstract class AnimatorAdapter extends SelectableAdapter {
 		int numberOfItemsOnScreen = lastVisiblePosition - firstVisiblePosition;
 		int numberOfAnimatedItems = position - 1;
 
-		//Save max child count reached
-		if (mMaxChildViews < mRecyclerView.getChildCount())
-			mMaxChildViews = mRecyclerView.getChildCount();
-
 		if (numberOfItemsOnScreen == 0 || numberOfItemsOnScreen < numberOfAnimatedItems || //Normal Forward scrolling after max itemOnScreen is reached
 				(firstVisiblePosition > 1 && firstVisiblePosition <= mMaxChildViews) || //Reverse scrolling
 				(position > mMaxChildViews && firstVisiblePosition == -1 && mRecyclerView.getChildCount() == 0)) { //Reverse scrolling and click on FastScroller
@@ -427,7 +642,7 @@ public abstract class AnimatorAdapter extends SelectableAdapter {
 	private void addAlphaAnimator(
 			@NonNull List<Animator> animators, @NonNull View view, @FloatRange(from = 0.0, to = 1.0) float alphaFrom) {
 		if (animatorsUsed.contains(AnimatorEnum.ALPHA)) return;
-		animators.add(ObjectAnimator.ofFloat(view, "alpha", alphaFrom, 1f));
+		animators.add(getViewAnimators(view).obtain(SLOT_ALPHA, "alpha", alphaFrom, 1f));
 		animatorsUsed.add(AnimatorEnum.ALPHA);
 	}
 
@@ -447,7 +662,8 @@ public abstract class AnimatorAdapter extends SelectableAdapter {
 				animatorsUsed.contains(AnimatorEnum.SLIDE_IN_RIGHT) ||
 				animatorsUsed.contains(AnimatorEnum.SLIDE_IN_TOP) ||
 				animatorsUsed.contains(AnimatorEnum.SLIDE_IN_BOTTOM)) return;
-		animators.add(ObjectAnimator.ofFloat(view, "translationX", -mRecyclerView.getLayoutManager().getWidth() * percent, 0));
+		animators.add(getViewAnimators(view).obtain(SLOT_TRANSLATION_X, "translationX",
+				-mRecyclerView.getLayoutManager().getWidth() * percent, 0));
 		animatorsUsed.add(AnimatorEnum.SLIDE_IN_LEFT);
 	}
 
@@ -467,7 +683,8 @@ public abstract class AnimatorAdapter extends SelectableAdapter {
 				animatorsUsed.contains(AnimatorEnum.SLIDE_IN_RIGHT) ||
 				animatorsUsed.contains(AnimatorEnum.SLIDE_IN_TOP) ||
 				animatorsUsed.contains(AnimatorEnum.SLIDE_IN_BOTTOM)) return;
-		animators.add(ObjectAnimator.ofFloat(view, "translationX", mRecyclerView.getLayoutManager().getWidth() * percent, 0));
+		animators.add(getViewAnimators(view).obtain(SLOT_TRANSLATION_X, "translationX",
+				mRecyclerView.getLayoutManager().getWidth() * percent, 0));
 		animatorsUsed.add(AnimatorEnum.SLIDE_IN_RIGHT);
 	}
 
@@ -486,7 +703,8 @@ public abstract class AnimatorAdapter extends SelectableAdapter {
 				animatorsUsed.contains(AnimatorEnum.SLIDE_IN_RIGHT) ||
 				animatorsUsed.contains(AnimatorEnum.SLIDE_IN_TOP) ||
 				animatorsUsed.contains(AnimatorEnum.SLIDE_IN_BOTTOM)) return;
-		animators.add(ObjectAnimator.ofFloat(view, "translationY", -mRecyclerView.getMeasuredHeight() >> 1, 0));
+		animators.add(getViewAnimators(view).obtain(SLOT_TRANSLATION_Y, "translationY",
+				-mRecyclerView.getMeasuredHeight() >> 1, 0));
 		animatorsUsed.add(AnimatorEnum.SLIDE_IN_TOP);
 	}
 
@@ -505,7 +723,8 @@ public abstract class AnimatorAdapter extends SelectableAdapter {
 				animatorsUsed.contains(AnimatorEnum.SLIDE_IN_RIGHT) ||
 				animatorsUsed.contains(AnimatorEnum.SLIDE_IN_TOP) ||
 				animatorsUsed.contains(AnimatorEnum.SLIDE_IN_BOTTOM)) return;
-		animators.add(ObjectAnimator.ofFloat(view, "translationY", mRecyclerView.getMeasuredHeight() >> 1, 0));
+		animators.add(getViewAnimators(view).obtain(SLOT_TRANSLATION_Y, "translationY",
+				mRecyclerView.getMeasuredHeight() >> 1, 0));
 		animatorsUsed.add(AnimatorEnum.SLIDE_IN_BOTTOM);
 	}
 
@@ -522,8 +741,9 @@ public abstract class AnimatorAdapter extends SelectableAdapter {
 	public void addScaleInAnimator(
 			@NonNull List<Animator> animators, @NonNull View view, @FloatRange(from = 0.0, to = 1.0) float scaleFrom) {
 		if (animatorsUsed.contains(AnimatorEnum.SCALE)) return;
-		animators.add(ObjectAnimator.ofFloat(view, "scaleX", scaleFrom, 1f));
-		animators.add(ObjectAnimator.ofFloat(view, "scaleY", scaleFrom, 1f));
+		ViewAnimators viewAnimators = getViewAnimators(view);
+		animators.add(viewAnimators.obtain(SLOT_SCALE_X, "scaleX", scaleFrom, 1f));
+		animators.add(viewAnimators.obtain(SLOT_SCALE_Y, "scaleY", scaleFrom, 1f));
 		animatorsUsed.add(AnimatorEnum.SCALE);
 	}
 
@@ -557,6 +777,7 @@ public abstract class AnimatorAdapter extends SelectableAdapter {
 
 		private void markNotified() {
 			isNotified = !isInitialize;
+			mVisibleRangeChildCount = -1;
 		}
 
 		@Override
@@ -581,34 +802,242 @@ public abstract class AnimatorAdapter extends SelectableAdapter {
 	}
 
 	/**
-	 * Helper Class to clear Animators List used to avoid multiple Item animation on same
-	 * position when fling.
+	 * Tracks the scroll velocity, to throttle the animations, and runs the frame budget
+	 * callback while scrolling. Everything is reset when the scrolling settles.
+	 * <p>Also refreshes the visible range and then calls {@link #onScrolledVisibleRange()}.
+	 * RecyclerView calls the scroll listeners in reverse order of registration, so the
+	 * listeners registered after this one run <u>before</u> the refresh and read the range of
+	 * the previous frame.</p>
 	 */
-	private class HelperAnimatorListener implements Animator.AnimatorListener {
-		int key;
-
-		HelperAnimatorListener(int key) {
-			this.key = key;
+	private class AnimatorScrollListener extends RecyclerView.OnScrollListener {
+		@Override
+		public void onScrollStateChanged(RecyclerView recyclerView, int newState) {
+			if (newState == RecyclerView.SCROLL_STATE_IDLE) {
+				stopFrameBudgetCallback();
+				mScrollVelocity = 0f;
+				isOverFrameBudget = false;
+			} else {
+				startFrameBudgetCallback();
+			}
 		}
 
 		@Override
-		public void onAnimationStart(Animator animation) {
+		public void onScrolled(RecyclerView recyclerView, int dx, int dy) {
+			updateVisibleRange();
+			onScrolledVisibleRange();
+			long now = SystemClock.uptimeMillis();
+			long elapsed = now - mLastScrollTime;
+			mLastScrollTime = now;
+			if (elapsed <= 0 || elapsed > 100L) return;//First frame after a pause
+			int delta = recyclerView.getLayoutManager().canScrollVertically() ? dy : dx;
+			//Smooth the instant velocity among frames
+			mScrollVelocity = (mScrollVelocity + delta * 1000f / elapsed) / 2f;
+		}
+	}
+
+	/**
+	 * Chained {@link Choreographer} callback: the interval between two consecutive frame
+	 * times is the real duration of a frame, also when no scroll event is delivered in it.
+	 */
+	@TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+	private class FrameBudgetCallback implements Choreographer.FrameCallback {
+		private long lastFrameTimeNanos = 0L;
+		private boolean running = false;
+
+		void start() {
+			if (running) return;
+			running = true;
+			lastFrameTimeNanos = 0L;
+			Choreographer.getInstance().postFrameCallback(this);
+		}
 
+		void stop() {
+			if (!running) return;
+			running = false;
+			Choreographer.getInstance().removeFrameCallback(this);
 		}
 
 		@Override
-		public void onAnimationEnd(Animator animation) {
-			mAnimators.remove(key);
+		public void doFrame(long frameTimeNanos) {
+			if (!running) return;
+			if (lastFrameTimeNanos > 0L) {
+				long elapsed = (frameTimeNanos - lastFrameTimeNanos) / 1000000L;
+				if (elapsed > mFrameBudget) {
+					if (DEBUG && !isOverFrameBudget)
+						Log.v(TAG, "Frame time " + elapsed + "ms over budget, animations skipped");
+					isOverFrameBudget = true;
+				}
+			}
+			lastFrameTimeNanos = frameTimeNanos;
+			Choreographer.getInstance().postFrameCallback(this);
+		}
+	}
+
+	/**
+	 * Pool of the Animators of an ItemView, kept in the View tag: the built-in animators and
+	 * the AnimatorSet are created the first time and reused at each animation of the same View,
+	 * as long as the composition of the animators doesn't change.
+	 * <p>The ViewPropertyAnimator of the View is shared with the ItemAnimator: only the
+	 * animation started here is cancelled, and the listener, the interpolator and the delay
+	 * are restored as soon as it is over.</p>
+	 */
+	private static class ViewAnimators implements ViewPropertyAnimatorListener {
+		//Default interpolator of the ViewPropertyAnimator
+		static final Interpolator DEFAULT_INTERPOLATOR = new AccelerateDecelerateInterpolator();
+
+		final View view;
+		final ObjectAnimator[] animators = new ObjectAnimator[SLOT_COUNT];
+		final float[] values = new float[SLOT_COUNT * 2];
+		final List<Animator> played = new ArrayList<Animator>();
+		AnimatorSet set;
+		int layerSlots;//Bitmask of the slots animated with ViewPropertyAnimator
+		boolean layerRunning;
+
+		ViewAnimators(View view) {
+			this.view = view;
+		}
+
+		/**
+		 * Ends the running animation. Useful when fling.
+		 */
+		void end() {
+			if (set != null && set.isStarted()) set.end();
+			if (layerRunning) {
+				//The listener might not be called if the animation is still in delay
+				ViewCompat.animate(view).cancel();
+				for (int slot = 0; slot < SLOT_COUNT; slot++) {
+					if ((layerSlots & (1 << slot)) != 0) setValue(slot, values[slot * 2 + 1]);
+				}
+				releaseLayerAnimator();
+			}
+			layerSlots = 0;
+		}
+
+		/**
+		 * Restores the shared ViewPropertyAnimator for the ItemAnimator.
+		 */
+		private void releaseLayerAnimator() {
+			layerRunning = false;
+			ViewCompat.animate(view)
+					.setListener(null)
+					.setInterpolator(DEFAULT_INTERPOLATOR)
+					.setStartDelay(0L);
 		}
 
 		@Override
-		public void onAnimationCancel(Animator animation) {
+		public void onAnimationStart(View view) {
+		}
 
+		@Override
+		public void onAnimationEnd(View view) {
+			if (layerRunning) releaseLayerAnimator();
 		}
 
 		@Override
-		public void onAnimationRepeat(Animator animation) {
+		public void onAnimationCancel(View view) {
+			if (layerRunning) releaseLayerAnimator();
+		}
+
+		/**
+		 * @return the animator of the slot, values are updated only if changed
+		 */
+		ObjectAnimator obtain(int slot, String property, float from, float to) {
+			ObjectAnimator animator = animators[slot];
+			if (animator == null) {
+				animator = ObjectAnimator.ofFloat(view, property, from, to);
+				animators[slot] = animator;
+			} else if (values[slot * 2] != from || values[slot * 2 + 1] != to) {
+				animator.setFloatValues(from, to);
+			}
+			values[slot * 2] = from;
+			values[slot * 2 + 1] = to;
+			return animator;
+		}
+
+		/**
+		 * @return the previous set if it plays the same animators, a new set otherwise
+		 */
+		AnimatorSet getAnimatorSet(List<Animator> animators) {
+			if (set == null || !played.equals(animators)) {
+				set = new AnimatorSet();
+				set.playTogether(animators);
+				played.clear();
+				played.addAll(animators);
+			}
+			return set;
+		}
 
+		/**
+		 * Executes the built-in animators with the ViewPropertyAnimator of the View.
+		 *
+		 * @return false if the list contains custom animators, nothing is started in this case
+		 */
+		boolean animateWithLayer(List<Animator> animators, long delay, Interpolator interpolator, long duration) {
+			int slots = 0;
+			for (int i = 0; i < animators.size(); i++) {
+				int slot = indexOf(animators.get(i));
+				if (slot < 0) return false;
+				slots |= 1 << slot;
+			}
+			ViewPropertyAnimatorCompat animator = ViewCompat.animate(view);
+			for (int slot = 0; slot < SLOT_COUNT; slot++) {
+				if ((slots & (1 << slot)) == 0) continue;
+				float to = values[slot * 2 + 1];
+				setValue(slot, values[slot * 2]);
+				switch (slot) {
+					case SLOT_ALPHA:
+						animator.alpha(to);
+						break;
+					case SLOT_TRANSLATION_X:
+						animator.translationX(to);
+						break;
+					case SLOT_TRANSLATION_Y:
+						animator.translationY(to);
+						break;
+					case SLOT_SCALE_X:
+						animator.scaleX(to);
+						break;
+					case SLOT_SCALE_Y:
+						animator.scaleY(to);
+						break;
+				}
+			}
+			layerSlots = slots;
+			layerRunning = true;
+			animator.setStartDelay(delay)
+					.setInterpolator(interpolator)
+					.setDuration(duration)
+					.setListener(this)
+					.withLayer()
+					.start();
+			return true;
+		}
+
+		private int indexOf(Animator animator) {
+			for (int slot = 0; slot < SLOT_COUNT; slot++) {
+				if (animators[slot] == animator) return slot;
+			}
+			return -1;
+		}
+
+		private void setValue(int slot, float value) {
+			switch (slot) {
+				case SLOT_ALPHA:
+					ViewCompat.setAlpha(view, value);
+					break;
+				case SLOT_TRANSLATION_X:
+					ViewCompat.setTranslationX(view, value);
+					break;
+				case SLOT_TRANSLATION_Y:
+					ViewCompat.setTranslationY(view, value);
+					break;
+				case SLOT_SCALE_X:
+					ViewCompat.setScaleX(view, value);
+					break;
+				case SLOT_SCALE_Y:
+					ViewCompat.setScaleY(view, value);
+					break;
+			}
 		}
 	}
 
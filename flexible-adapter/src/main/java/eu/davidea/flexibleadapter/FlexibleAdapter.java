@@ -15,44 +15,65 @@
  */
 package eu.davidea.flexibleadapter;
 
-import android.annotation.SuppressLint;
 import android.app.Activity;
+import android.os.AsyncTask;
 import android.os.Bundle;
 import android.os.Handler;
 import android.os.Looper;
 import android.os.Message;
+import android.os.MessageQueue;
 import android.support.annotation.CallSuper;
+import android.support.annotation.FloatRange;
 import android.support.annotation.IntRange;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
+import android.support.annotation.ColorInt;
+import android.support.v4.util.LruCache;
 import android.support.v4.view.ViewCompat;
 import android.support.v7.widget.LinearLayoutManager;
 import android.support.v7.widget.RecyclerView;
 import android.support.v7.widget.StaggeredGridLayoutManager;
 import android.support.v7.widget.helper.ItemTouchHelper;
+import android.text.Spannable;
 import android.util.Log;
+import android.util.SparseArray;
+import android.util.SparseIntArray;
 import android.view.LayoutInflater;
 import android.view.MotionEvent;
 import android.view.View;
 import android.view.ViewGroup;
+import android.widget.TextView;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
-import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.Executor;
 
+import eu.davidea.fastscroller.FastScroller;
+import eu.davidea.flexibleadapter.common.FlexibleViewPool;
+import eu.davidea.flexibleadapter.common.PagedList;
 import eu.davidea.flexibleadapter.common.SmoothScrollGridLayoutManager;
 import eu.davidea.flexibleadapter.common.SmoothScrollLinearLayoutManager;
+import eu.davidea.flexibleadapter.helpers.EndlessLoaderHelper;
 import eu.davidea.flexibleadapter.helpers.ItemTouchHelperCallback;
 import eu.davidea.flexibleadapter.helpers.StickyHeaderHelper;
+import eu.davidea.flexibleadapter.items.IDiffable;
 import eu.davidea.flexibleadapter.items.IExpandable;
 import eu.davidea.flexibleadapter.items.IFilterable;
 import eu.davidea.flexibleadapter.items.IFlexible;
 import eu.davidea.flexibleadapter.items.IHeader;
+import eu.davidea.flexibleadapter.items.IPreparable;
+import eu.davidea.flexibleadapter.items.ISearchable;
 import eu.davidea.flexibleadapter.items.ISectionable;
+import eu.davidea.flexibleadapter.utils.SearchMatcher;
+import eu.davidea.flexibleadapter.utils.Utils;
 import eu.davidea.viewholders.ExpandableViewHolder;
 import eu.davidea.viewholders.FlexibleViewHolder;
 
@@ -90,7 +111,8 @@ import eu.davidea.viewholders.FlexibleViewHolder;
 @SuppressWarnings({"unused", "Range", "Convert2Diamond", "ConstantConditions", "unchecked", "SuspiciousMethodCalls"})
 public class FlexibleAdapter<T extends IFlexible>
 		extends AnimatorAdapter
-		implements ItemTouchHelperCallback.AdapterCallback {
+		implements ItemTouchHelperCallback.AdapterCallback, FastScroller.SectionProvider,
+		FastScroller.ViewTypeProvider {
 
 	private static final String TAG = FlexibleAdapter.class.getSimpleName();
 	private static final String EXTRA_PARENT = TAG + "_parentSelected";
@@ -112,14 +134,16 @@ public class FlexibleAdapter<T extends IFlexible>
 	 */
 	private List<IHeader> mOrphanHeaders;
 	private boolean headersShown = false, headersSticky = false, recursive = false;
+	private int mStickyHeaderLevels = 1;
 	private StickyHeaderHelper mStickyHeaderHelper;
 
 	/**
-	 * Handler for delayed {@link #filterItems(List)} and {@link OnDeleteCompleteListener#onDeleteConfirmed}
+	 * Handler for delayed {@link #filterItems(List)}, {@link OnDeleteCompleteListener#onDeleteConfirmed}
+	 * and the chunks of {@link #onLoadMoreStream(IFlexible)}
 	 * <p>You can override this Handler, but you must keep the "What" already used:
 	 * <br/>0 = filterItems delay
-	 * <br/>1 = deleteConfirmed when Undo timeout is over</p>
-	 * <br/>2 = reset flag to load more items</p>
+	 * <br/>1 = deleteConfirmed when Undo timeout is over
+	 * <br/>4 = onLoadMoreStream flush</p>
 	 */
 	protected Handler mHandler = new Handler(Looper.getMainLooper(), new Handler.Callback() {
 		public boolean handleMessage(Message message) {
@@ -130,10 +154,14 @@ public class FlexibleAdapter<T extends IFlexible>
 				case 1: //confirm delete
 					OnDeleteCompleteListener listener = (OnDeleteCompleteListener) message.obj;
 					if (listener != null) listener.onDeleteConfirmed();
-					emptyBin();
+					if (mPurgeExecutor != null && mDeleteInBackgroundListener != null) {
+						purgeBinInBackground();
+					} else {
+						emptyBin();
+					}
 					return true;
-				case 2: //onLoadMore
-					resetOnLoadMore();
+				case 4: //onLoadMoreStream
+					flushStream();
 					return true;
 			}
 			return false;
@@ -144,17 +172,46 @@ public class FlexibleAdapter<T extends IFlexible>
 	 * Used to save deleted items and to recover them (Undo).
 	 */
 	private List<RestoreInfo> mRestoreList;
+	private Executor mPurgeExecutor;
+	private OnDeleteInBackgroundListener<T> mDeleteInBackgroundListener;
 	private boolean restoreSelection = false, multiRange = false, unlinkOnRemoveHeader = false,
 			removeOrphanHeaders = false, permanentDelete = false, adjustSelected = true;
 
 	/* ViewTypes */
 	protected LayoutInflater mInflater;
-	@SuppressLint("UseSparseArrays")//We can usually count Type instances on the fingers of a hand
-	private HashMap<Integer, T> mTypeInstances = new HashMap<Integer, T>();
+	private SparseArray<T> mTypeInstances = new SparseArray<T>();
+	//Bit assigned to each view type, for type membership checks with a mask
+	private SparseIntArray mTypeBits = new SparseIntArray();
+	//Counts per view type, initialized at first request and then updated incrementally
+	private final ViewTypeCounter mTypeCounter = new ViewTypeCounter();
 	private boolean autoMap = false;
 
+	/* ViewHolder warm up */
+	private static final int DEFAULT_MAX_RECYCLED_VIEWS = 5;
+	private final SparseIntArray mWarmUpCounts = new SparseIntArray();
+	private boolean mWarmUpScheduled = false;
+	//State captured on the main thread for the ViewHolders created by a warm up Executor
+	private final ThreadLocal<WarmUpSnapshot<T>> mWarmUpSnapshot = new ThreadLocal<WarmUpSnapshot<T>>();
+	private FlexibleViewPool mSharedViewPool;
+
+	/* Prepare in background */
+	private Executor mPrepareExecutor;
+	private int mPrepareDistance = 5;
+	//Guarded by mPrepareQueue, drained by the single reusable mPrepareTask
+	private final ArrayDeque<IPreparable> mPrepareQueue = new ArrayDeque<IPreparable>();
+	private final Set<IPreparable> mPreparing = Collections.newSetFromMap(new IdentityHashMap<IPreparable, Boolean>());
+	private boolean mPrepareScheduled = false;
+
 	/* Filter */
-	private String mSearchText = "", mOldSearchText = "";
+	//Read also by the prepare Executor
+	private volatile String mSearchText = "";
+	private String mOldSearchText = "";
+	private volatile SearchMatcher mSearchMatcher = new SearchMatcher("");
+	//Highlighted texts keyed by (item, text, matcher, color), filled also in background
+	private static final int HIGHLIGHT_CACHE_SIZE = 256, PREPARE_FILTER_RESULTS = 30;
+	private final LruCache<HighlightKey, CharSequence> mHighlightCache = new LruCache<HighlightKey, CharSequence>(HIGHLIGHT_CACHE_SIZE);
+	private final HighlightKey mHighlightProbe = new HighlightKey(null, null, null, 0);
+	private volatile int mRankGeneration = 0;
 	private List<IExpandable> mExpandedFilterFlags;
 	private boolean mNotifyChangeOfUnfilteredItems = false, filtering = false;
 
@@ -169,9 +226,19 @@ public class FlexibleAdapter<T extends IFlexible>
 	private ItemTouchHelper mItemTouchHelper;
 
 	/* EndlessScroll */
-	private int mEndlessScrollThreshold = 1;
-	private boolean mLoading = false;
-	private T mProgressItem;
+	private int mEndlessScrollThreshold = 1, mEndlessPrefetchDistance = 0;
+	private float mEndlessPrefetchPages = 0f;
+	private long mEndlessPrefetchTime = 0L;
+	//Loading state of each end: the progress item is shown while loading, after an empty
+	//page the loading waits the next drag of the user (no more loading on rebinding)
+	private static final int ENDLESS_IDLE = 0, ENDLESS_LOADING = 1, ENDLESS_WAIT_DRAG = 2;
+	private int mEndlessState = ENDLESS_IDLE, mEndlessTopState = ENDLESS_IDLE;
+	private T mProgressItem, mProgressTopItem;
+	/* Streaming of the items loaded by Endless Scroll */
+	private static final long STREAM_FRAME_DELAY = 16L;
+	private final List<T> mStreamBuffer = new ArrayList<T>();
+	private boolean mStreamFlushPending = false;
+	private int mStreamedCount = 0;
 
 	/* Listeners */
 	protected OnUpdateListener mUpdateListener;
@@ -181,6 +248,7 @@ public class FlexibleAdapter<T extends IFlexible>
 	protected OnItemSwipeListener mItemSwipeListener;
 	protected OnStickyHeaderChangeListener mStickyHeaderChangeListener;
 	protected EndlessScrollListener mEndlessScrollListener;
+	protected EndlessScrollTopListener mEndlessScrollTopListener;
 
 	/*--------------*/
 	/* CONSTRUCTORS */
@@ -202,6 +270,10 @@ public class FlexibleAdapter<T extends IFlexible>
 	 * Any write operation performed on the items list is <u>synchronized</u>.
 	 * <p><b>PASS ALWAYS A <u>COPY</u> OF THE ORIGINAL LIST</b>: <i>new ArrayList&lt;T&gt;(originalList);</i></p>
 	 *
+	 * <p>To display a large data source with a known size, pass a {@link PagedList}: items are
+	 * then loaded by pages and only the most recent pages are kept in memory. Filtering is not
+	 * supported in paged mode.</p>
+	 *
 	 * @param items     items to display
 	 * @param listeners can be an instance of:
 	 *                  <br/>- {@link OnUpdateListener}
@@ -212,7 +284,11 @@ public class FlexibleAdapter<T extends IFlexible>
 	 *                  <br/>- {@link OnStickyHeaderChangeListener}
 	 */
 	public FlexibleAdapter(@NonNull List<T> items, @Nullable Object listeners) {
-		mItems = Collections.synchronizedList(items);
+		if (items instanceof PagedList) {
+			//Paged mode: the list is read-only, synchronized, and notifies this Adapter when pages are loaded
+			((PagedList) items).setAdapter(this);
+			mItems = items;
+		} else mItems = Collections.synchronizedList(items);
 		mRestoreList = new ArrayList<RestoreInfo>();
 		mOrphanHeaders = new ArrayList<IHeader>();
 
@@ -254,10 +330,17 @@ public class FlexibleAdapter<T extends IFlexible>
 		if (mStickyHeaderHelper != null && headersShown) {
 			mStickyHeaderHelper.attachToRecyclerView(mRecyclerView);
 		}
+		if (mSharedViewPool != null) {
+			mRecyclerView.setRecycledViewPool(mSharedViewPool);
+		}
+		recyclerView.addOnScrollListener(mEndlessDragListener);
 	}
 
 	@Override
 	public void onDetachedFromRecyclerView(RecyclerView recyclerView) {
+		recyclerView.removeOnScrollListener(mEndlessDragListener);
+		cancelEndlessLoads();
+		cancelWarmUp();
 		if (mStickyHeaderHelper != null) {
 			mStickyHeaderHelper.detachFromRecyclerView(mRecyclerView);
 			mStickyHeaderHelper = null;
@@ -406,7 +489,11 @@ public class FlexibleAdapter<T extends IFlexible>
 			animateTo(items);
 		} else {
 			if (items == null) mItems = new ArrayList<>();
-			else mItems = new ArrayList<>(items);
+			else if (items instanceof PagedList) {
+				//Do not copy all pages, the list is read-only
+				((PagedList) items).setAdapter(this);
+				mItems = items;
+			} else mItems = new ArrayList<>(items);
 			notifyDataSetChanged();
 		}
 		//Check if Data Set is empty
@@ -430,6 +517,40 @@ public class FlexibleAdapter<T extends IFlexible>
 		return mItems.get(position);
 	}
 
+	/**
+	 * Same as {@link #getItem(int)}, but in paged mode the page of the position is not requested
+	 * and the placeholder is returned: to use in the scans of the list, which must not load all
+	 * the pages.
+	 *
+	 * @param position the position of the item in the list
+	 * @return the item or its placeholder, null if the position is out of bounds
+	 * @see PagedList#peek(int)
+	 */
+	public T peekItem(@IntRange(from = 0) int position) {
+		if (position < 0 || position >= mItems.size()) return null;
+		return mItems instanceof PagedList ? ((PagedList<T>) mItems).peek(position) : mItems.get(position);
+	}
+
+	/**
+	 * Same as {@link #getItemViewType(int)}, but in paged mode the page of the position is not
+	 * requested: the positions not loaded have the type of their placeholder, and no
+	 * placeholder is created for them.
+	 *
+	 * @param position the adapter position
+	 * @return the view type of the item or of its placeholder
+	 * @see PagedList#peekForViewType(int)
+	 * @see FastScroller#setHeightEstimation(boolean)
+	 */
+	@Override
+	public int peekItemViewType(int position) {
+		if (mItems instanceof PagedList) {
+			T item = ((PagedList<T>) mItems).peekForViewType(position);
+			mapViewTypeFrom(item);
+			return item.getLayoutRes();
+		}
+		return getItemViewType(position);
+	}
+
 	@Override
 	public long getItemId(int position) {
 		return position;
@@ -464,21 +585,26 @@ public class FlexibleAdapter<T extends IFlexible>
 	/**
 	 * Provides the number of items currently displayed of one or more certain types until
 	 * the specified position.
+	 * <p>The counts are computed at the first call and then maintained at each notification,
+	 * so the total count is O(1) and the count until a position is O(&radic;n), also after
+	 * insertions and removals in the middle of the list.</p>
 	 *
-	 * @param position  the position limit where to stop counting (included)
+	 * @param position  the position limit where to stop counting (excluded): the positions
+	 *                  [0, position) are counted
 	 * @param viewTypes the viewTypes to count
 	 * @see #getItemCount()
 	 * @see #getItemCountOfTypes(Integer...)
 	 * @see #isEmpty()
 	 */
 	public int getItemCountOfTypesUntil(@IntRange(from = 0) int position, Integer... viewTypes) {
-		List<Integer> viewTypeList = Arrays.asList(viewTypes);
+		syncTypeCounter();
 		int count = 0;
-		for (int i = 0; i < position; i++) {
-			//Privilege faster counting if autoMap is active
-			if ((autoMap && viewTypeList.contains(mItems.get(i).getLayoutRes())) ||
-					viewTypeList.contains(getItemViewType(i)))
-				count++;
+		outer:
+		for (int i = 0; i < viewTypes.length; i++) {
+			for (int k = 0; k < i; k++) {
+				if (viewTypes[k].equals(viewTypes[i])) continue outer;//Already counted
+			}
+			count += mTypeCounter.countOfUntil(viewTypes[i], position);
 		}
 		return count;
 	}
@@ -677,6 +803,19 @@ public class FlexibleAdapter<T extends IFlexible>
 		return item != null && item instanceof IHeader;
 	}
 
+	/**
+	 * In section mode of the {@link FastScroller}, the shown headers are the sections.
+	 * <p>The item is peeked: in paged mode, the scan of the sections doesn't load the pages.</p>
+	 *
+	 * @param position the adapter position
+	 * @return true if headers are shown and the item is a header, false otherwise
+	 * @see FastScroller#setSectionMode(boolean)
+	 */
+	@Override
+	public boolean isSectionStart(int position) {
+		return headersShown && isHeader(peekItem(position));
+	}
+
 	/**
 	 * Returns if Adapter will display sticky headers on the top.
 	 *
@@ -701,6 +840,22 @@ public class FlexibleAdapter<T extends IFlexible>
 		return setStickyHeaders(true);
 	}
 
+	/**
+	 * Stacks at the top, below the sticky section header, the expanded parents of the first
+	 * visible item, one for each expansion level (ex. {@code IExpandable} items of level 1 and 2
+	 * inside an expandable header of level 0).
+	 * <p>Supported with vertical orientation only. Default value is 1 (only the section header).</p>
+	 *
+	 * @param levels the maximum number of stacked headers, section header included
+	 * @return this Adapter, so the call can be chained
+	 * @see #enableStickyHeaders()
+	 */
+	public FlexibleAdapter setStickyHeaderLevels(@IntRange(from = 1) int levels) {
+		mStickyHeaderLevels = Math.max(1, levels);
+		if (mStickyHeaderHelper != null) mStickyHeaderHelper.setStackedLevels(mStickyHeaderLevels);
+		return this;
+	}
+
 	/**
 	 * Disables the sticky header functionality.
 	 */
@@ -712,8 +867,10 @@ public class FlexibleAdapter<T extends IFlexible>
 		// Add or Remove the sticky headers
 		if (headersShown && headersSticky) {
 			this.headersSticky = true;
-			if (mStickyHeaderHelper == null)
+			if (mStickyHeaderHelper == null) {
 				mStickyHeaderHelper = new StickyHeaderHelper(this, mStickyHeaderChangeListener);
+				mStickyHeaderHelper.setStackedLevels(mStickyHeaderLevels);
+			}
 			if (!mStickyHeaderHelper.isAttachedToRecyclerView())
 				mStickyHeaderHelper.attachToRecyclerView(mRecyclerView);
 		} else if (mStickyHeaderHelper != null) {
@@ -742,6 +899,16 @@ public class FlexibleAdapter<T extends IFlexible>
 		return (ViewGroup) ((Activity) mRecyclerView.getContext()).findViewById(R.id.sticky_header_container);
 	}
 
+	/**
+	 * The sticky headers are driven by the scroll listener of the Adapter, so they read the
+	 * visible range of the current frame.
+	 */
+	@Override
+	void onScrolledVisibleRange() {
+		if (mStickyHeaderHelper != null && mStickyHeaderHelper.isAttachedToRecyclerView())
+			mStickyHeaderHelper.updateOrClearHeader(false);
+	}
+
 	/**
 	 * Helper for the Adapter to check if an item holds a header
 	 *
@@ -788,7 +955,7 @@ public class FlexibleAdapter<T extends IFlexible>
 		if (!headersShown) return null;
 		//When headers are visible and sticky, get the previous header
 		for (int i = position; i >= 0; i--) {
-			T item = getItem(i);
+			T item = peekItem(i);
 			if (isHeader(item)) return (IHeader) item;
 		}
 		return null;
@@ -816,7 +983,7 @@ public class FlexibleAdapter<T extends IFlexible>
 	public int getSectionIndex(@IntRange(from = 0) int position) {
 		int sectionIndex = 0;
 		for (int i = 0; i <= position; i++) {
-			if (isHeader(getItem(i))) sectionIndex++;
+			if (isHeader(peekItem(i))) sectionIndex++;
 		}
 		return sectionIndex;
 	}
@@ -1022,7 +1189,7 @@ public class FlexibleAdapter<T extends IFlexible>
 	private boolean isHeaderShared(IHeader header, int positionStart, int itemCount) {
 		int firstElementWithHeader = getGlobalPositionOf(header) + 1;
 		for (int i = firstElementWithHeader; i < mItems.size(); i++) {
-			T item = getItem(i);
+			T item = peekItem(i);
 			//Another header is met, we can stop here
 			if (item instanceof IHeader) break;
 			//Skip the items under modification
@@ -1074,10 +1241,16 @@ public class FlexibleAdapter<T extends IFlexible>
 	 */
 	@Override
 	public RecyclerView.ViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+		WarmUpSnapshot<T> snapshot = mWarmUpSnapshot.get();
+		if (snapshot != null) {
+			//Warm up thread: only inflation, the Adapter state is not read
+			return snapshot.instances.get(viewType).createViewHolder(this, snapshot.inflater, parent);
+		}
 		if (mInflater == null) {
 			mInflater = LayoutInflater.from(parent.getContext());
 		}
 		T item = getViewTypeInstance(viewType);
+		if (mSharedViewPool != null) mSharedViewPool.onViewHolderCreated(viewType);
 		if (item == null) {
 			//If everything has been set properly, this should never happen ;-)
 			Log.wtf(TAG, "ViewType instance has not been correctly mapped for viewType " + viewType);
@@ -1100,7 +1273,8 @@ public class FlexibleAdapter<T extends IFlexible>
 	 */
 	@Override
 	public void onBindViewHolder(RecyclerView.ViewHolder holder, int position) {
-		this.onBindViewHolder(holder, position, Collections.unmodifiableList(new ArrayList<Object>()));
+		//Shared immutable empty list: no allocation for each full bind
+		this.onBindViewHolder(holder, position, Collections.emptyList());
 	}
 
 	/**
@@ -1121,11 +1295,16 @@ public class FlexibleAdapter<T extends IFlexible>
 		//Bind the correct view elevation
 		if (holder instanceof FlexibleViewHolder) {
 			FlexibleViewHolder flexHolder = (FlexibleViewHolder) holder;
+			//The ViewHolder might have been created by another Adapter
+			if (mSharedViewPool != null) flexHolder.setAdapter(this);
 			if (holder.itemView.isActivated() && flexHolder.getActivationElevation() > 0)
 				ViewCompat.setElevation(flexHolder.itemView, flexHolder.getActivationElevation());
 			else if (flexHolder.getActivationElevation() > 0)//Leave unaltered the default elevation
 				ViewCompat.setElevation(flexHolder.itemView, 0);
 		}
+		//Two-phase binding: the item must be prepared, then prepare the next items in background
+		prepareItem(getItem(position));
+		if (mPrepareExecutor != null) prepareAhead(position);
 		if (!autoMap) {
 			super.onBindViewHolder(holder, position, payloads);
 		} else {
@@ -1141,12 +1320,328 @@ public class FlexibleAdapter<T extends IFlexible>
 		onLoadMore(position);
 	}
 
+	/**
+	 * Shares the {@link RecyclerView.RecycledViewPool} and the registry of the view types with
+	 * other Adapters, so ViewHolders of identical item layouts are reused across all lists
+	 * (ex. tabs or nested horizontal lists).
+	 * <p>The view types already mapped by this Adapter are registered in the shared pool.
+	 * The pool is set to the RecyclerView when the Adapter is attached.</p>
+	 * <b>Note:</b> ViewHolders of type {@link FlexibleViewHolder} are re-attached to the Adapter
+	 * that binds them; custom ViewHolders should not keep references to a specific Adapter.
+	 *
+	 * @param viewPool the pool to share, null to stop sharing
+	 * @return this Adapter, so the call can be chained
+	 * @see FlexibleViewPool
+	 */
+	public FlexibleAdapter setSharedViewPool(@Nullable FlexibleViewPool viewPool) {
+		mSharedViewPool = viewPool;
+		if (viewPool != null) {
+			for (int i = 0; i < mTypeInstances.size(); i++)
+				viewPool.registerViewType(mTypeInstances.valueAt(i));
+			if (mRecyclerView != null) mRecyclerView.setRecycledViewPool(viewPool);
+		}
+		return this;
+	}
+
+	/**
+	 * @return the shared pool of ViewHolders, null if not set
+	 * @see #setSharedViewPool(FlexibleViewPool)
+	 */
+	@Nullable
+	public FlexibleViewPool getSharedViewPool() {
+		return mSharedViewPool;
+	}
+
+	/*-----------------*/
+	/* PREPARE METHODS */
+	/*-----------------*/
+
+	/**
+	 * Sets the Executor on which the items implementing {@link IPreparable} are prepared when
+	 * they enter the prefetch window, in the current scroll direction.
+	 * <p>Without an Executor, the items are prepared on the main thread just before binding.</p>
+	 *
+	 * @param executor the background Executor, null to prepare only on the main thread
+	 * @return this Adapter, so the call can be chained
+	 * @see #setPrepareDistance(int)
+	 */
+	public FlexibleAdapter setPrepareExecutor(@Nullable Executor executor) {
+		mPrepareExecutor = executor;
+		return this;
+	}
+
+	/**
+	 * Sets the number of items, after (or before) the bound position, to prepare in background.
+	 * <p>Default value is 5.</p>
+	 *
+	 * @param distance the number of items to prepare ahead
+	 * @return this Adapter, so the call can be chained
+	 * @see #setPrepareExecutor(Executor)
+	 */
+	public FlexibleAdapter setPrepareDistance(@IntRange(from = 0) int distance) {
+		mPrepareDistance = Math.max(0, distance);
+		return this;
+	}
+
+	/**
+	 * Prepares the item for the current search text, if not prepared yet, on the calling thread.
+	 * <p>A background preparation of the same item is not awaited: at worst the item is
+	 * prepared twice, but the main thread is never blocked.</p>
+	 */
+	private void prepareItem(T item) {
+		if (!(item instanceof IPreparable)) return;
+		IPreparable preparable = (IPreparable) item;
+		String searchText = mSearchText;
+		if (!preparable.isPreparedFor(searchText)) preparable.prepare(this, searchText);
+	}
+
+	/**
+	 * Drops the precomputed results of the item.
+	 */
+	private void invalidatePrepared(T item) {
+		if (item instanceof IPreparable) ((IPreparable) item).invalidatePrepared();
+	}
+
+	/**
+	 * Queues the items in the prefetch window of the bound position and schedules the
+	 * prepare task, if not running already.
+	 */
+	private void prepareAhead(int position) {
+		int step = getScrollVelocity() < 0 ? -1 : 1;
+		String searchText = mSearchText;
+		boolean schedule;
+		synchronized (mPrepareQueue) {
+			for (int i = 1; i <= mPrepareDistance; i++) {
+				queuePreparable(peekItem(position + i * step), searchText);
+			}
+			schedule = shouldSchedulePrepareTask();
+		}
+		if (schedule) mPrepareExecutor.execute(mPrepareTask);
+	}
+
+	/**
+	 * Queues the first results of a filter pass, to cache their highlights in background
+	 * before they are bound.
+	 */
+	private void prepareFilterResults(List<T> results) {
+		if (mPrepareExecutor == null) return;
+		String searchText = mSearchText;
+		boolean schedule;
+		synchronized (mPrepareQueue) {
+			for (int i = 0; i < Math.min(results.size(), PREPARE_FILTER_RESULTS); i++) {
+				queuePreparable(results.get(i), searchText);
+			}
+			schedule = shouldSchedulePrepareTask();
+		}
+		if (schedule) mPrepareExecutor.execute(mPrepareTask);
+	}
+
+	/**
+	 * @return the first preparable items of the list, at most {@code max}
+	 */
+	private IPreparable[] collectPreparables(List<T> items, int max) {
+		List<IPreparable> preparables = new ArrayList<IPreparable>();
+		for (int i = 0; i < items.size() && preparables.size() < max; i++) {
+			if (items.get(i) instanceof IPreparable) preparables.add((IPreparable) items.get(i));
+		}
+		return preparables.toArray(new IPreparable[preparables.size()]);
+	}
+
+	/**
+	 * Must be called holding the lock of mPrepareQueue.
+	 */
+	private void queuePreparable(T item, String searchText) {
+		if (!(item instanceof IPreparable)) return;
+		IPreparable preparable = (IPreparable) item;
+		if (preparable.isPreparedFor(searchText) || !mPreparing.add(preparable)) return;
+		mPrepareQueue.add(preparable);
+	}
+
+	/**
+	 * Must be called holding the lock of mPrepareQueue.
+	 *
+	 * @return true if the prepare task has to be executed
+	 */
+	private boolean shouldSchedulePrepareTask() {
+		if (mPrepareScheduled || mPrepareQueue.isEmpty()) return false;
+		mPrepareScheduled = true;
+		return true;
+	}
+
+	/**
+	 * Prepares the queued items one by one, with the search text current at the moment of
+	 * each preparation. One instance is reused for all the bindings.
+	 */
+	private final Runnable mPrepareTask = new Runnable() {
+		@Override
+		public void run() {
+			while (true) {
+				IPreparable preparable;
+				synchronized (mPrepareQueue) {
+					preparable = mPrepareQueue.poll();
+					if (preparable == null) {
+						mPrepareScheduled = false;
+						return;
+					}
+				}
+				try {
+					String searchText = mSearchText;
+					if (!preparable.isPreparedFor(searchText))
+						preparable.prepare(FlexibleAdapter.this, searchText);
+				} finally {
+					synchronized (mPrepareQueue) {
+						mPreparing.remove(preparable);
+					}
+				}
+			}
+		}
+	};
+
+	/*----------------------------*/
+	/* VIEWHOLDER WARM UP METHODS */
+	/*----------------------------*/
+
+	/**
+	 * Pre-creates the ViewHolders of the provided view type during the idle time of the main
+	 * thread, and seeds them into the {@link RecyclerView.RecycledViewPool}, so the first
+	 * appearance of a new view type (ex. the first expanded subItem or a header) doesn't cause
+	 * an inflation while scrolling.
+	 * <p>One ViewHolder is created at each idle slot. The item is mapped as view type if not
+	 * mapped yet. If necessary, the max number of recycled views for the view type is raised.</p>
+	 * <b>Note:</b> Must be called after the Adapter is attached to the RecyclerView.
+	 *
+	 * @param item  any item instance of the view type to create
+	 * @param count the number of ViewHolders expected to be displayed at the same time
+	 * @return this Adapter, so the call can be chained
+	 * @see #warmUpViewHolders(SparseIntArray, Executor)
+	 */
+	public FlexibleAdapter warmUpViewHolders(@NonNull T item, @IntRange(from = 1) int count) {
+		mapViewTypeFrom(item);
+		SparseIntArray counts = new SparseIntArray(1);
+		counts.put(item.getLayoutRes(), count);
+		return warmUpViewHolders(counts, null);
+	}
+
+	/**
+	 * Pre-creates the ViewHolders of the view types already mapped, with the expected count for
+	 * each layout resource, and seeds them into the {@link RecyclerView.RecycledViewPool}.
+	 * <p>With a {@code null} executor, the ViewHolders are created one by one during the idle
+	 * time of the main thread. With an executor, all ViewHolders are created on that thread
+	 * and then seeded on the main thread: use it only if the layouts of those view types can
+	 * be safely inflated outside the main thread. The background thread only inflates, from
+	 * the item instances and the inflater captured at this call.</p>
+	 * <b>Note:</b> Must be called after the Adapter is attached to the RecyclerView.
+	 *
+	 * @param counts   the expected count of ViewHolders for each layout resource
+	 * @param executor the background Executor, null to use the main thread idle time
+	 * @return this Adapter, so the call can be chained
+	 */
+	public FlexibleAdapter warmUpViewHolders(@NonNull SparseIntArray counts, @Nullable Executor executor) {
+		if (mRecyclerView == null) {
+			Log.w(TAG, "Cannot warm up ViewHolders, Adapter is not attached to RecyclerView");
+			return this;
+		}
+		if (mInflater == null) {
+			mInflater = LayoutInflater.from(mRecyclerView.getContext());
+		}
+		RecyclerView.RecycledViewPool pool = mRecyclerView.getRecycledViewPool();
+		final SparseIntArray warmUpCounts = new SparseIntArray(counts.size());
+		final WarmUpSnapshot<T> snapshot = new WarmUpSnapshot<T>(mInflater);
+		for (int i = 0; i < counts.size(); i++) {
+			int viewType = counts.keyAt(i), count = counts.valueAt(i);
+			if (count <= 0) continue;
+			T instance = getViewTypeInstance(viewType);
+			if (instance == null) {
+				Log.w(TAG, "Cannot warm up ViewHolders, viewType " + viewType + " is not mapped");
+				continue;
+			}
+			snapshot.instances.put(viewType, instance);
+			int max = pool instanceof FlexibleViewPool ?
+					((FlexibleViewPool) pool).getMaxRecycledViews(viewType) : DEFAULT_MAX_RECYCLED_VIEWS;
+			if (count > max) pool.setMaxRecycledViews(viewType, count);
+			warmUpCounts.put(viewType, count);
+		}
+		if (executor == null) {
+			for (int i = 0; i < warmUpCounts.size(); i++) {
+				mWarmUpCounts.put(warmUpCounts.keyAt(i),
+						mWarmUpCounts.get(warmUpCounts.keyAt(i)) + warmUpCounts.valueAt(i));
+			}
+			if (!mWarmUpScheduled && mWarmUpCounts.size() > 0) {
+				mWarmUpScheduled = true;
+				Looper.myQueue().addIdleHandler(mWarmUpIdleHandler);
+			}
+		} else {
+			final RecyclerView recyclerView = mRecyclerView;
+			executor.execute(new Runnable() {
+				@Override
+				public void run() {
+					final List<RecyclerView.ViewHolder> holders = new ArrayList<RecyclerView.ViewHolder>();
+					mWarmUpSnapshot.set(snapshot);
+					try {
+						for (int i = 0; i < warmUpCounts.size(); i++) {
+							for (int k = 0; k < warmUpCounts.valueAt(i); k++) {
+								holders.add(createViewHolder(recyclerView, warmUpCounts.keyAt(i)));
+							}
+						}
+					} finally {
+						mWarmUpSnapshot.remove();
+					}
+					mHandler.post(new Runnable() {
+						@Override
+						public void run() {
+							if (mRecyclerView != recyclerView) return;
+							if (DEBUG) Log.v(TAG, "Warm up seeding " + holders.size() + " ViewHolders");
+							for (RecyclerView.ViewHolder holder : holders) {
+								//Statistics of the shared pool are updated on the main thread
+								if (mSharedViewPool != null)
+									mSharedViewPool.onViewHolderCreated(holder.getItemViewType());
+								recyclerView.getRecycledViewPool().putRecycledView(holder);
+							}
+						}
+					});
+				}
+			});
+		}
+		return this;
+	}
+
+	/**
+	 * Stops the pending warm up of the ViewHolders created during the idle time.
+	 */
+	private void cancelWarmUp() {
+		mWarmUpCounts.clear();
+		if (mWarmUpScheduled) {
+			mWarmUpScheduled = false;
+			Looper.myQueue().removeIdleHandler(mWarmUpIdleHandler);
+		}
+	}
+
+	private final MessageQueue.IdleHandler mWarmUpIdleHandler = new MessageQueue.IdleHandler() {
+		@Override
+		public boolean queueIdle() {
+			if (mRecyclerView == null || mWarmUpCounts.size() == 0) {
+				mWarmUpScheduled = false;
+				return false;
+			}
+			//Only one ViewHolder per idle slot, to not delay the next frame
+			int viewType = mWarmUpCounts.keyAt(0), count = mWarmUpCounts.valueAt(0);
+			if (DEBUG) Log.v(TAG, "Warm up ViewHolder for viewType " + viewType + " remaining " + count);
+			mRecyclerView.getRecycledViewPool().putRecycledView(createViewHolder(mRecyclerView, viewType));
+			if (count > 1) mWarmUpCounts.put(viewType, count - 1);
+			else mWarmUpCounts.removeAt(0);
+			mWarmUpScheduled = mWarmUpCounts.size() > 0;
+			return mWarmUpScheduled;
+		}
+	};
+
 	/*------------------------*/
 	/* ENDLESS SCROLL METHODS */
 	/*------------------------*/
 
 	/**
 	 * Sets the callback to load more items asynchronously.
+	 * <p>Use {@link EndlessLoaderHelper} as listener to load the pages concurrently, with
+	 * de-duplication of the requests, retry on error and cancellation on detach/filter.</p>
 	 *
 	 * @param endlessScrollListener the callback to invoke the asynchronous loading
 	 * @param progressItem          the item representing the progress bar
@@ -1180,20 +1675,117 @@ public class FlexibleAdapter<T extends IFlexible>
 		return this;
 	}
 
+	/**
+	 * Sets the callback to load more items asynchronously when the top of the list is reached.
+	 * <p>To use in combination with {@link #onLoadMoreTopComplete(List)}: new items are
+	 * prepended and the current scroll position is preserved (chat/history use case).</p>
+	 * It can be used together with {@link #setEndlessScrollListener(EndlessScrollListener, IFlexible)}.
+	 *
+	 * @param endlessScrollTopListener the callback to invoke the asynchronous loading
+	 * @param progressItem             the item representing the progress bar at the top, must
+	 *                                 be a different instance of the bottom progress item
+	 * @return this Adapter, so the call can be chained
+	 */
+	public FlexibleAdapter setEndlessScrollTopListener(@NonNull EndlessScrollTopListener endlessScrollTopListener,
+													   @NonNull T progressItem) {
+		if (endlessScrollTopListener != null && progressItem != null) {
+			mEndlessScrollTopListener = endlessScrollTopListener;
+			progressItem.setEnabled(false);
+			mProgressTopItem = progressItem;
+		}
+		return this;
+	}
+
+	/**
+	 * Sets an additional distance, in pixels, to start the automatic loading in advance.
+	 * <p>The distance is converted in number of items using the current average size of the
+	 * displayed items and it is added to the threshold.</p>
+	 * Default value is 0.
+	 *
+	 * @param pixels any non negative distance in pixels
+	 * @return this Adapter, so the call can be chained
+	 * @see #setEndlessPrefetchPages(float)
+	 * @see #setEndlessPrefetchTime(long)
+	 */
+	public FlexibleAdapter setEndlessPrefetchDistance(@IntRange(from = 0) int pixels) {
+		mEndlessPrefetchDistance = Math.max(0, pixels);
+		return this;
+	}
+
+	/**
+	 * Same as {@link #setEndlessPrefetchDistance(int)}, but the distance is expressed in pages,
+	 * where a page is the visible extent of the RecyclerView.
+	 * <p>Default value is 0.</p>
+	 *
+	 * @param pages any non negative number of pages, ex. 0.5f for half screen
+	 * @return this Adapter, so the call can be chained
+	 * @see #setEndlessPrefetchDistance(int)
+	 */
+	public FlexibleAdapter setEndlessPrefetchPages(@FloatRange(from = 0.0) float pages) {
+		mEndlessPrefetchPages = Math.max(0f, pages);
+		return this;
+	}
+
+	/**
+	 * Adapts the prefetch distance to the scroll velocity: the distance the user would scroll
+	 * during the provided time, at the current velocity, is added to the threshold. With a
+	 * time equal to the average loading time, the next page is requested early enough that
+	 * the progress item is not shown on fast flings.
+	 * <p>Default value is 0 (no adaptation).</p>
+	 *
+	 * @param loadTime the expected loading time in milliseconds
+	 * @return this Adapter, so the call can be chained
+	 * @see #setEndlessPrefetchDistance(int)
+	 */
+	public FlexibleAdapter setEndlessPrefetchTime(@IntRange(from = 0) long loadTime) {
+		mEndlessPrefetchTime = Math.max(0L, loadTime);
+		return this;
+	}
+
+	/**
+	 * @param forward true for the bottom end of the list, false for the top
+	 * @return the number of unbound items before the end at which the loading starts
+	 */
+	private int getEndlessThreshold(boolean forward) {
+		int threshold = mEndlessScrollThreshold;
+		if (mRecyclerView == null || mRecyclerView.getChildCount() == 0) return threshold;
+		boolean vertical = mRecyclerView.getLayoutManager().canScrollVertically();
+		int extent = vertical ? mRecyclerView.getHeight() : mRecyclerView.getWidth();
+		if (extent <= 0) return threshold;
+		float distance = mEndlessPrefetchDistance + mEndlessPrefetchPages * extent;
+		float velocity = getScrollVelocity();
+		if ((forward && velocity > 0) || (!forward && velocity < 0))
+			distance += Math.abs(velocity) * mEndlessPrefetchTime / 1000f;
+		//Convert pixels in items, the child count already considers the span count
+		return threshold + (int) (distance * mRecyclerView.getChildCount() / extent);
+	}
+
 	private void onLoadMore(int position) {
-		if (mEndlessScrollListener != null && getGlobalPositionOf(mProgressItem) < 0
-				&& position >= getItemCount() - mEndlessScrollThreshold) {
-			if (!mLoading) {
-				mLoading = true;
-				mRecyclerView.post(new Runnable() {
-					@Override
-					public void run() {
-						mItems.add(mProgressItem);
-						notifyItemInserted(getItemCount());
-						mEndlessScrollListener.onLoadMore();
-					}
-				});
-			}
+		//Bottom end: the progress item, if shown, is always the last item
+		if (mEndlessScrollListener != null && mEndlessState == ENDLESS_IDLE && getItem(getItemCount() - 1) != mProgressItem
+				&& position >= getItemCount() - getEndlessThreshold(true)) {
+			mEndlessState = ENDLESS_LOADING;
+			mRecyclerView.post(new Runnable() {
+				@Override
+				public void run() {
+					mItems.add(mProgressItem);
+					notifyItemInserted(getItemCount());
+					mEndlessScrollListener.onLoadMore();
+				}
+			});
+		}
+		//Top end
+		if (mEndlessScrollTopListener != null && mEndlessTopState == ENDLESS_IDLE && getItem(0) != mProgressTopItem
+				&& position < getEndlessThreshold(false)) {
+			mEndlessTopState = ENDLESS_LOADING;
+			mRecyclerView.post(new Runnable() {
+				@Override
+				public void run() {
+					mItems.add(0, mProgressTopItem);
+					notifyItemInserted(0);
+					mEndlessScrollTopListener.onLoadMoreTop();
+				}
+			});
 		}
 	}
 
@@ -1202,6 +1794,7 @@ public class FlexibleAdapter<T extends IFlexible>
 	 * <p>When no more to load, pass empty list or null to hide the progressItem.</p>
 	 *
 	 * @param newItems the list of the new items, can be empty or null
+	 * @see #onLoadMoreStream(IFlexible)
 	 */
 	public void onLoadMoreComplete(@Nullable List<T> newItems) {
 		int progressPosition = getGlobalPositionOf(mProgressItem);
@@ -1212,9 +1805,9 @@ public class FlexibleAdapter<T extends IFlexible>
 		if (newItems != null && newItems.size() > 0) {
 			if (DEBUG)
 				Log.v(TAG, "onLoadMore performing adding " + newItems.size() + " new Items!");
+			//The new items can trigger the next page as soon as they are bound
+			mEndlessState = ENDLESS_IDLE;
 			addItems(getItemCount(), newItems);
-			//Reset OnLoadMore delayed
-			mHandler.sendEmptyMessageDelayed(2, 200L);
 		} else {
 			noMoreLoad();
 		}
@@ -1225,12 +1818,185 @@ public class FlexibleAdapter<T extends IFlexible>
 	 */
 	private void noMoreLoad() {
 		if (DEBUG) Log.v(TAG, "onLoadMore noMoreLoad!");
+		//Rebinding the last item must not load again, only the next drag does
+		mEndlessState = ENDLESS_WAIT_DRAG;
 		notifyItemChanged(getItemCount() - 1, true);
-		mHandler.sendEmptyMessageDelayed(2, 200L);
 	}
 
 	private void resetOnLoadMore() {
-		mLoading = false;
+		mEndlessState = ENDLESS_IDLE;
+	}
+
+	/**
+	 * Re-enables the loading of the ends that received an empty page, when the user drags.
+	 */
+	private final RecyclerView.OnScrollListener mEndlessDragListener = new RecyclerView.OnScrollListener() {
+		@Override
+		public void onScrollStateChanged(RecyclerView recyclerView, int newState) {
+			if (newState != RecyclerView.SCROLL_STATE_DRAGGING) return;
+			if (mEndlessState == ENDLESS_WAIT_DRAG) mEndlessState = ENDLESS_IDLE;
+			if (mEndlessTopState == ENDLESS_WAIT_DRAG) mEndlessTopState = ENDLESS_IDLE;
+		}
+	};
+
+	/**
+	 * Streaming version of {@link #onLoadMoreComplete(List)}, to call for each new item as soon
+	 * as it is available, ex. while decoding a slow network response.
+	 * <p>The items are collected and appended once per frame before the progressItem, each
+	 * chunk with a single range insertion. Expanded items are inserted together with their
+	 * subItems, without the need to expand them one by one.</p>
+	 * Can be called from any thread. When the page is complete, call
+	 * {@link #onLoadMoreStreamComplete()}.
+	 *
+	 * @param item the new item just loaded
+	 */
+	public void onLoadMoreStream(@NonNull T item) {
+		synchronized (mStreamBuffer) {
+			mStreamBuffer.add(item);
+			if (!mStreamFlushPending) {
+				mStreamFlushPending = true;
+				mHandler.sendEmptyMessageDelayed(4, STREAM_FRAME_DELAY);
+			}
+		}
+	}
+
+	/**
+	 * To call when all the items of the page have been streamed with
+	 * {@link #onLoadMoreStream(IFlexible)}: the remaining items are appended and the
+	 * progressItem is hidden. If no items were streamed, no more items will be loaded.
+	 * <p>Can be called from any thread.</p>
+	 */
+	public void onLoadMoreStreamComplete() {
+		mHandler.post(new Runnable() {
+			@Override
+			public void run() {
+				flushStream();
+				if (mStreamedCount == 0) {
+					onLoadMoreComplete(null);
+					return;
+				}
+				if (DEBUG) Log.v(TAG, "onLoadMore streamed " + mStreamedCount + " new Items!");
+				mStreamedCount = 0;
+				int progressPosition = getGlobalPositionOf(mProgressItem);
+				if (progressPosition >= 0) {
+					mItems.remove(mProgressItem);
+					notifyItemRemoved(progressPosition);
+				}
+				resetOnLoadMore();
+			}
+		});
+	}
+
+	/**
+	 * Appends the streamed items collected so far with one range insertion.
+	 */
+	private void flushStream() {
+		List<T> newItems;
+		synchronized (mStreamBuffer) {
+			mHandler.removeMessages(4);
+			mStreamFlushPending = false;
+			if (mStreamBuffer.isEmpty()) return;
+			newItems = new ArrayList<T>(mStreamBuffer);
+			mStreamBuffer.clear();
+		}
+		List<T> chunk = new ArrayList<T>(newItems.size());
+		for (T item : newItems) {
+			chunk.add(item);
+			if (isExpanded(item)) chunk.addAll(getExpandableList((IExpandable) item));
+		}
+		int position = getGlobalPositionOf(mProgressItem);
+		if (position < 0) position = getItemCount();
+		mStreamedCount += chunk.size();
+		addItems(position, chunk);
+	}
+
+	/**
+	 * Appends a page loaded in advance, while the page for the end of the list might be still
+	 * in flight: the new items are inserted before the progressItem, if displayed, and the
+	 * loading state is not changed.
+	 * <p>Used by {@link EndlessLoaderHelper} to deliver the prefetched pages, the page for which
+	 * the progressItem is displayed must be delivered with {@link #onLoadMoreComplete(List)}.</p>
+	 *
+	 * @param newItems the list of the new items, can be empty
+	 */
+	public void onLoadMorePrefetched(@NonNull List<T> newItems) {
+		if (newItems.isEmpty()) return;
+		if (DEBUG) Log.v(TAG, "onLoadMore adding " + newItems.size() + " prefetched Items!");
+		int position = getGlobalPositionOf(mProgressItem);
+		if (position < 0) position = getItemCount();
+		addItems(position, newItems);
+	}
+
+	/**
+	 * Cancels the pages in flight when the listener is an {@link EndlessLoaderHelper}, hides the
+	 * progressItem and re-enables the Endless Scrolling immediately.
+	 */
+	private void cancelEndlessLoads() {
+		if (mEndlessScrollListener instanceof EndlessLoaderHelper) {
+			((EndlessLoaderHelper) mEndlessScrollListener).cancelAll();
+			//No page will be delivered: the progressItem would block the next loading
+			int progressPosition = getGlobalPositionOf(mProgressItem);
+			if (progressPosition >= 0) {
+				mItems.remove(progressPosition);
+				notifyItemRemoved(progressPosition);
+			}
+			resetOnLoadMore();
+		}
+	}
+
+	/**
+	 * To call when more items are successfully loaded for the top of the list.
+	 * <p>New items are prepended and the first visible item is kept at the same place on
+	 * the screen. When no more to load, pass empty list or null to hide the progressItem.</p>
+	 *
+	 * @param newItems the list of the new items, can be empty or null
+	 * @see #setEndlessScrollTopListener(EndlessScrollTopListener, IFlexible)
+	 */
+	public void onLoadMoreTopComplete(@Nullable List<T> newItems) {
+		//Take the anchor, ignoring the progress item
+		int anchorPosition = RecyclerView.NO_POSITION, anchorOffset = 0;
+		if (mRecyclerView != null) {
+			RecyclerView.LayoutManager layoutManager = mRecyclerView.getLayoutManager();
+			for (int i = 0; i < mRecyclerView.getChildCount(); i++) {
+				View child = mRecyclerView.getChildAt(i);
+				int childPosition = mRecyclerView.getChildAdapterPosition(child);
+				if (childPosition != RecyclerView.NO_POSITION && getItem(childPosition) != mProgressTopItem) {
+					anchorPosition = childPosition;
+					anchorOffset = layoutManager.canScrollVertically() ?
+							layoutManager.getDecoratedTop(child) - mRecyclerView.getPaddingTop() :
+							layoutManager.getDecoratedLeft(child) - mRecyclerView.getPaddingLeft();
+					break;
+				}
+			}
+		}
+		int progressPosition = getGlobalPositionOf(mProgressTopItem);
+		if (progressPosition >= 0) {
+			mItems.remove(progressPosition);
+			notifyItemRemoved(progressPosition);
+			if (anchorPosition > progressPosition) anchorPosition--;
+		}
+		if (newItems != null && newItems.size() > 0) {
+			if (DEBUG)
+				Log.v(TAG, "onLoadMoreTop performing adding " + newItems.size() + " new Items!");
+			int initialCount = getItemCount();
+			mEndlessTopState = ENDLESS_IDLE;
+			addItems(0, newItems);
+			//Preserve the scroll anchor (headers might have been added as well)
+			if (anchorPosition >= 0)
+				scrollToPositionWithOffset(anchorPosition + getItemCount() - initialCount, anchorOffset);
+		} else {
+			if (DEBUG) Log.v(TAG, "onLoadMoreTop noMoreLoad!");
+			mEndlessTopState = ENDLESS_WAIT_DRAG;
+		}
+	}
+
+	private void scrollToPositionWithOffset(int position, int offset) {
+		RecyclerView.LayoutManager layoutManager = mRecyclerView.getLayoutManager();
+		if (layoutManager instanceof StaggeredGridLayoutManager) {
+			((StaggeredGridLayoutManager) layoutManager).scrollToPositionWithOffset(position, offset);
+		} else if (layoutManager instanceof LinearLayoutManager) {
+			((LinearLayoutManager) layoutManager).scrollToPositionWithOffset(position, offset);
+		}
 	}
 
 	/*--------------------*/
@@ -1400,7 +2166,7 @@ public class FlexibleAdapter<T extends IFlexible>
 	public List<Integer> getExpandedPositions() {
 		List<Integer> expandedPositions = new ArrayList<Integer>();
 		for (int i = 0; i < mItems.size() - 1; i++) {
-			if (isExpanded(mItems.get(i)))
+			if (isExpanded(peekItem(i)))
 				expandedPositions.add(i);
 		}
 		return expandedPositions;
@@ -1542,7 +2308,7 @@ public class FlexibleAdapter<T extends IFlexible>
 		int expanded = 0;
 		//More efficient if we expand from First expandable position
 		for (int i = 0; i < mItems.size(); i++) {
-			T item = getItem(i);
+			T item = peekItem(i);
 			if (isExpandable(item)) {
 				IExpandable expandable = (IExpandable) item;
 				if (expandable.getExpansionLevel() <= level && expand(i, true, false) > 0) {
@@ -1664,7 +2430,8 @@ public class FlexibleAdapter<T extends IFlexible>
 	 * @param item     the item with the new content
 	 * @param payload  any non-null user object to notify the current item (the payload will be
 	 *                 therefore passed to the bind method of the item ViewHolder to optimize the
-	 *                 content to update); pass null to rebind all fields of this item.
+	 *                 content to update); pass null to rebind all fields of this item, or to
+	 *                 compute the payload if the item implements {@link IDiffable}.
 	 */
 	public void updateItem(@IntRange(from = 0) int position, @NonNull T item,
 						   @Nullable Object payload) {
@@ -1672,7 +2439,16 @@ public class FlexibleAdapter<T extends IFlexible>
 			Log.e(TAG, "Cannot updateItem on position out of OutOfBounds!");
 			return;
 		}
-		mItems.set(position, item);
+		T oldItem = mItems.set(position, item);
+		invalidatePrepared(item);
+		if (payload == null && item != oldItem && item instanceof IDiffable) {
+			IDiffable<T> diffable = (IDiffable<T>) item;
+			if (diffable.isContentSameAs(oldItem)) {
+				if (DEBUG) Log.v(TAG, "updateItem content unchanged on position " + position);
+				return;
+			}
+			payload = diffable.getChangePayload(oldItem);
+		}
 		if (DEBUG) Log.v(TAG, "updateItem notifyItemChanged on position " + position);
 		notifyItemChanged(position, payload);
 	}
@@ -2162,12 +2938,11 @@ public class FlexibleAdapter<T extends IFlexible>
 	 * @see #removeAllSelectedItems()
 	 */
 	public void removeItemsOfType(Integer... viewTypes) {
-		List<Integer> viewTypeList = Arrays.asList(viewTypes);
+		long mask = getViewTypesMask(viewTypes);
 		List<Integer> itemsToRemove = new ArrayList<Integer>();
 		for (int i = mItems.size() - 1; i >= 0; i--) {
 			//Privilege autoMap if active
-			if ((autoMap && viewTypeList.contains(mItems.get(i).getLayoutRes())) ||
-					viewTypeList.contains(getItemViewType(i)))
+			if (isViewTypeIn(autoMap ? mItems.get(i).getLayoutRes() : getItemViewType(i), mask, viewTypes))
 				itemsToRemove.add(i);
 		}
 		this.removeItems(itemsToRemove);
@@ -2466,6 +3241,35 @@ public class FlexibleAdapter<T extends IFlexible>
 		emptyBin();
 	}
 
+	/**
+	 * Returns the Executor used to purge the bin when the Undo timer is over.
+	 *
+	 * @return the Executor previously set, null if the bin is purged on the main thread
+	 * @see #setPurgeExecutor(Executor, OnDeleteInBackgroundListener)
+	 */
+	public Executor getPurgeExecutor() {
+		return mPurgeExecutor;
+	}
+
+	/**
+	 * Sets an Executor to commit the deleted items off the main thread.
+	 * <p>When the Undo timer is over, after {@link OnDeleteCompleteListener#onDeleteConfirmed()},
+	 * the deleted items are delivered from the Executor to the listener as an immutable batch,
+	 * so the commit in the user Database can be performed in background.</p>
+	 * Default value is null (everything happens on the main thread).
+	 *
+	 * @param executor any Executor, null to commit on the main thread only
+	 * @param listener the listener that commits the deleted items in background
+	 * @return this Adapter, so the call can be chained
+	 * @see OnDeleteInBackgroundListener
+	 */
+	public FlexibleAdapter setPurgeExecutor(@Nullable Executor executor,
+											@Nullable OnDeleteInBackgroundListener<T> listener) {
+		mPurgeExecutor = executor;
+		mDeleteInBackgroundListener = listener;
+		return this;
+	}
+
 	/**
 	 * Clean memory from items just removed.
 	 * <p><b>Note:</b> This method is automatically called after timer is over and after a
@@ -2476,6 +3280,24 @@ public class FlexibleAdapter<T extends IFlexible>
 		mRestoreList.clear();
 	}
 
+	/**
+	 * Hands the deleted items as immutable batch to the background listener, from the purge
+	 * Executor.
+	 * <p>The bin is emptied immediately: items are not restorable anymore.</p>
+	 */
+	private synchronized void purgeBinInBackground() {
+		if (DEBUG) Log.v(TAG, "purgeBinInBackground deletedItems=" + mRestoreList.size());
+		final List<T> deletedItems = Collections.unmodifiableList(getDeletedItems());
+		final OnDeleteInBackgroundListener<T> listener = mDeleteInBackgroundListener;
+		mRestoreList.clear();
+		mPurgeExecutor.execute(new Runnable() {
+			@Override
+			public void run() {
+				listener.onDeleteConfirmedInBackground(deletedItems);
+			}
+		});
+	}
+
 	/**
 	 * Convenience method to start Undo timer with default timeout of 5''
 	 *
@@ -2590,10 +3412,90 @@ public class FlexibleAdapter<T extends IFlexible>
 		return mSearchText;
 	}
 
+	/**
+	 * The matcher of the current search text, to share between
+	 * {@link IFilterable#filter(String)} and the highlighting of the items.
+	 *
+	 * @return the matcher of the current search text, never null
+	 * @see #setSearchMatchMode(int)
+	 * @see eu.davidea.flexibleadapter.utils.Utils#highlightText(android.content.Context, android.widget.TextView, String, SearchMatcher, int)
+	 */
+	@NonNull
+	public SearchMatcher getSearchMatcher() {
+		return mSearchMatcher;
+	}
+
+	/**
+	 * Sets how the tokens of the search text are matched by {@link #getSearchMatcher()}.
+	 * <p>Default value is {@link SearchMatcher#MATCH_CONTAINS}.</p>
+	 *
+	 * @param mode one of {@link SearchMatcher#MATCH_CONTAINS}, {@link SearchMatcher#MATCH_PREFIX}
+	 * @return this Adapter, so the call can be chained
+	 */
+	public FlexibleAdapter setSearchMatchMode(@SearchMatcher.MatchMode int mode) {
+		mSearchMatcher = new SearchMatcher(mSearchMatcher.getQuery(), Locale.getDefault(), mode);
+		return this;
+	}
+
 	public void setSearchText(String searchText) {
-		if (searchText != null)
-			mSearchText = searchText.trim().toLowerCase(Locale.getDefault());
-		else mSearchText = "";
+		String newText = searchText != null ? searchText.trim().toLowerCase(Locale.getDefault()) : "";
+		//Fold and split the search text once for all items. The matcher is published before
+		//the text: a background thread reading the new text also reads its matcher
+		if (!newText.equals(mSearchMatcher.getQuery())) {
+			mSearchMatcher = new SearchMatcher(newText, Locale.getDefault(), mSearchMatcher.getMode());
+			mHighlightCache.evictAll();
+		}
+		mSearchText = newText;
+	}
+
+	/**
+	 * Builds the text of the item with the matches of the current search text highlighted, or
+	 * returns it from the highlight cache of this Adapter.
+	 * <p>The cache is keyed by item, text, search text and color, so the same text of
+	 * different items or of different search texts never collide. This method is thread safe:
+	 * the filter pass already fills the cache in background for the first results, through
+	 * {@link IPreparable#prepare(FlexibleAdapter, String)}.</p>
+	 *
+	 * @param item         the item owning the text
+	 * @param originalText the original text which the transformation is applied to
+	 * @param color        the color of the highlighted text
+	 * @return a Spannable if the text matched, the original text otherwise
+	 * @see Utils#getHighlightedText(String, SearchMatcher, int)
+	 */
+	@NonNull
+	public CharSequence getHighlightedText(@NonNull T item, String originalText, @ColorInt int color) {
+		if (originalText == null) originalText = "";
+		SearchMatcher matcher = mSearchMatcher;
+		CharSequence text;
+		synchronized (mHighlightCache) {
+			text = mHighlightCache.get(mHighlightProbe.set(item, originalText, matcher, color));
+			mHighlightProbe.set(null, null, null, 0);
+		}
+		if (text != null) return text;
+		text = Utils.getHighlightedText(originalText, matcher, color);
+		synchronized (mHighlightCache) {
+			mHighlightCache.put(new HighlightKey(item, originalText, matcher, color), text);
+		}
+		return text;
+	}
+
+	/**
+	 * Sets into the TextView the text of the item with the matches of the current search text
+	 * highlighted with the accent color (if available).
+	 *
+	 * @param item         the item owning the text
+	 * @param textView     the TextView to transform
+	 * @param originalText the original text which the transformation is applied to
+	 * @param defColor     the default color in case accentColor is not found
+	 * @see #getHighlightedText(IFlexible, String, int)
+	 */
+	public void highlightText(@NonNull T item, @NonNull TextView textView, String originalText,
+							  @ColorInt int defColor) {
+		CharSequence text = getHighlightedText(item, originalText,
+				Utils.fetchAccentColor(textView.getContext(), defColor));
+		//TextView copies the Spannable, so the cached instance is never modified
+		textView.setText(text, text instanceof Spannable ?
+				TextView.BufferType.SPANNABLE : TextView.BufferType.NORMAL);
 	}
 
 	/**
@@ -2604,6 +3506,8 @@ public class FlexibleAdapter<T extends IFlexible>
 	 * user.</p>
 	 * The notification is triggered in {@link #applyAndAnimateAdditions(List, List)} when new
 	 * items are not added.
+	 * <p>Items implementing {@link IDiffable} are not notified with the Boolean payload: they
+	 * are rebound only with their change payload, when their content has changed.</p>
 	 *
 	 * @param notifyChange true to trigger {@link #notifyItemChanged(int)} while filtering,
 	 *                     false otherwise
@@ -2643,11 +3547,19 @@ public class FlexibleAdapter<T extends IFlexible>
 	 * <br/>- <b>NEW!</b> Expandable items are picked up and displayed if at least a child is
 	 * collected by the current filter.
 	 * <br/>- <b>NEW!</b> Items are animated thanks to {@link #animateTo(List)}.
+	 * <br/>- Not supported in paged mode: the call is ignored when the Adapter displays a
+	 * {@link PagedList}.
 	 *
 	 * @param unfilteredItems the list to filter
 	 * @see #filterObject(IFlexible, String)
 	 */
 	public synchronized void filterItems(@NonNull List<T> unfilteredItems) {
+		if (mItems instanceof PagedList) {
+			Log.w(TAG, "Cannot filter items, filter is not supported in paged mode");
+			return;
+		}
+		//Discard the pending ranked results
+		mRankGeneration++;
 		// NOTE: In case user has deleted some items and he changes or applies a filter while
 		// deletion is pending (Undo started), in order to be consistent, we need to recalculate
 		// the new position in the new list and finally skip those items to avoid they are shown!
@@ -2699,7 +3611,11 @@ public class FlexibleAdapter<T extends IFlexible>
 		//Animate search results only in case of new SearchText
 		if (hasNewSearchText(mSearchText)) {
 			mOldSearchText = mSearchText;
+			//Pages requested for the old filter are no longer valid
+			cancelEndlessLoads();
 			animateTo(values);
+			//Highlights of the first results computed in background
+			prepareFilterResults(values);
 			//Restore headers if necessary
 			if (!hasSearchText()) {
 				//Add headers in post. It enqueues the modification for the LayoutManager
@@ -2724,6 +3640,124 @@ public class FlexibleAdapter<T extends IFlexible>
 			mUpdateListener.onUpdateEmptyView(getItemCount());
 	}
 
+	/**
+	 * Ranked version of {@link #filterItems(List)}: the matching items are scored by relevance
+	 * and only the best {@code maxResults} are displayed, sorted by score, headers excluded.
+	 * <p>Items implementing {@link ISearchable} are scored by
+	 * {@link SearchMatcher#score(CharSequence)} on their fields (prefix, word start, contains
+	 * and fuzzy matches), other items are collected by {@link #filterObject(IFlexible, String)}
+	 * with the lowest score. The ranking runs on a background thread keeping a bounded top-K
+	 * heap, so the matches are never all materialized; results of an older search text are
+	 * discarded.</p>
+	 * <b>Note:</b>
+	 * <br/>- {@link ISearchable#getSearchableFields()}, {@link #filterObject(IFlexible, String)}
+	 * and so {@link IFilterable#filter(String)} are invoked on
+	 * {@link AsyncTask#THREAD_POOL_EXECUTOR}: they must be thread safe and must not access
+	 * the Views.
+	 * <br/>- When the items currently displayed are more than twice {@code maxResults}, the
+	 * results replace the list with a single {@link #notifyDataSetChanged()}, without
+	 * {@link #animateTo(List)}: animating so many removals would cost more than the ranking.
+	 * <br/>- When the search text is cleared, {@link #filterItems(List)} is invoked to restore
+	 * the original list with the headers.
+	 * <p>Not supported in paged mode: the call is ignored when the Adapter displays a
+	 * {@link PagedList}.</p>
+	 *
+	 * @param unfilteredItems the list to rank, it is not modified
+	 * @param maxResults      the maximum number of results to display
+	 * @see #setSearchText(String)
+	 * @see #setSearchMatchMode(int)
+	 */
+	public void filterItemsRanked(@NonNull List<T> unfilteredItems, @IntRange(from = 1) final int maxResults) {
+		if (mItems instanceof PagedList) {
+			Log.w(TAG, "Cannot filter items, filter is not supported in paged mode");
+			return;
+		}
+		final int generation = ++mRankGeneration;
+		if (!hasSearchText()) {
+			filterItems(new ArrayList<T>(unfilteredItems));
+			return;
+		}
+		final SearchMatcher matcher = mSearchMatcher;
+		final String searchText = mSearchText;
+		final List<T> items = new ArrayList<T>(unfilteredItems);
+		final Set<T> deletedItems = new HashSet<T>(getDeletedItems());
+		AsyncTask.THREAD_POOL_EXECUTOR.execute(new Runnable() {
+			@Override
+			public void run() {
+				final List<T> results = rankItems(items, deletedItems, matcher, searchText, maxResults, generation);
+				if (results == null) return;
+				//Copied before posting: the results become the main list
+				IPreparable[] firstResults = collectPreparables(results, PREPARE_FILTER_RESULTS);
+				mHandler.post(new Runnable() {
+					@Override
+					public void run() {
+						if (generation != mRankGeneration) return;
+						if (DEBUG) Log.v(TAG, "filterItemsRanked results=" + results.size());
+						int initialCount = getItemCount();
+						mOldSearchText = searchText;
+						cancelEndlessLoads();
+						filtering = true;
+						if (initialCount > maxResults * 2) {
+							//Too many removals to animate: the list is replaced, animateTo is skipped on purpose
+							mItems = Collections.synchronizedList(results);
+							notifyDataSetChanged();
+						} else {
+							animateTo(results);
+						}
+						filtering = false;
+						if (mUpdateListener != null && (initialCount == 0) != (getItemCount() == 0))
+							mUpdateListener.onUpdateEmptyView(getItemCount());
+					}
+				});
+				//Still in background: highlights of the first results, while they are animated
+				for (int i = 0; i < firstResults.length && generation == mRankGeneration; i++) {
+					if (!firstResults[i].isPreparedFor(searchText))
+						firstResults[i].prepare(FlexibleAdapter.this, searchText);
+				}
+			}
+		});
+	}
+
+	/**
+	 * Keeps the best items in a min-heap of size maxResults. Executed in background.
+	 *
+	 * @return the items sorted by score, null if a newer search has been started
+	 */
+	private List<T> rankItems(List<T> items, Set<T> deletedItems, SearchMatcher matcher,
+							  String searchText, int maxResults, int generation) {
+		PriorityQueue<RankedItem<T>> heap = new PriorityQueue<RankedItem<T>>(maxResults + 1);
+		for (int i = 0; i < items.size(); i++) {
+			if ((i & 0x3FF) == 0 && generation != mRankGeneration) return null;
+			T item = items.get(i);
+			if (isHeader(item) || deletedItems.contains(item)) continue;
+			int score = 0, field = 0;
+			if (item instanceof ISearchable) {
+				CharSequence[] fields = ((ISearchable) item).getSearchableFields();
+				for (int f = 0; fields != null && f < fields.length; f++) {
+					//With the same score, the first field wins
+					int fieldScore = matcher.score(fields[f]);
+					if (fieldScore > score) {
+						score = fieldScore;
+						field = f;
+					}
+				}
+			} else if (filterObject(item, searchText)) {
+				score = 1;
+			}
+			if (score <= 0) continue;
+			if (heap.size() < maxResults) {
+				heap.add(new RankedItem<T>(item, score, field, i));
+			} else if (RankedItem.compare(score, field, i, heap.peek()) > 0) {
+				heap.poll();
+				heap.add(new RankedItem<T>(item, score, field, i));
+			}
+		}
+		List<T> results = new ArrayList<T>(heap.size());
+		while (!heap.isEmpty()) results.add(heap.poll().item);
+		Collections.reverse(results);
+		return results;
+	}
+
 	/**
 	 * This method is a wrapper filter for expandable items.<br/>
 	 * It performs filtering on the subItems returning true, if the any child should be in the
@@ -2772,6 +3806,8 @@ public class FlexibleAdapter<T extends IFlexible>
 	 * you DON'T NEED to implement is the scan for the children: this is already done :-)
 	 * <br/>- If you don't want to implement the {@code IFilterable} interface on the items, then
 	 * you can override this method to have another filter logic!
+	 * <br/>- With {@link #filterItemsRanked(List, int)} this method is invoked on
+	 * {@link AsyncTask#THREAD_POOL_EXECUTOR}.
 	 *
 	 * @param item       the object to be inspected
 	 * @param constraint constraint, that the object has to fulfil
@@ -2843,6 +3879,9 @@ public class FlexibleAdapter<T extends IFlexible>
 	 * <p>Used by the filter.</p>
 	 * Unchanged items will be notified if {@code mNotifyChangeOfUnfilteredItems} is set true, and
 	 * payload will be set as a Boolean.
+	 * <p>Items implementing {@link IDiffable} are replaced by their new instance and notified
+	 * only once, with the computed change payload, if their content has changed: they don't
+	 * receive the Boolean payload.</p>
 	 *
 	 * @param models the new list containing the new items
 	 * @return the cleaned up item list. make sure to set your new list to this one
@@ -2863,13 +3902,19 @@ public class FlexibleAdapter<T extends IFlexible>
 		int out = 0;
 		for (int i = from.size() - 1; i >= 0; i--) {
 			final T item = from.get(i);
-			if (!newItems.contains(item) && (!isHeader(item) || (isHeader(item) && headersShown))) {
+			int newIndex = newItems.indexOf(item);
+			if (newIndex < 0 && (!isHeader(item) || (isHeader(item) && headersShown))) {
 				if (DEBUG) Log.v(TAG, "animateRemovals remove position=" + i + " item=" + item);
 				from.remove(i);
 				notifyItemRemoved(i);
 				out++;
+				continue;
+			}
+			//One notification per kept row: diffable items notify only their change payload
+			T newItem = newIndex >= 0 ? newItems.get(newIndex) : item;
+			if (newItem instanceof IDiffable) {
+				applyChangePayload(from, i, newItem);
 			} else if (mNotifyChangeOfUnfilteredItems) {
-				from.set(i, item);
 				notifyItemChanged(i, mNotifyChangeOfUnfilteredItems);
 				if (DEBUG) Log.v(TAG, "animateRemovals   keep position=" + i + " item=" + item);
 			}
@@ -2877,6 +3922,22 @@ public class FlexibleAdapter<T extends IFlexible>
 		if (DEBUG) Log.v(TAG, "animateRemovals total out=" + out + " size=" + newItems.size());
 	}
 
+	/**
+	 * Replaces the kept item with its new version, if it implements {@link IDiffable}, and
+	 * notifies only the changed fields.
+	 */
+	private void applyChangePayload(List<T> from, int position, T newItem) {
+		T oldItem = from.get(position);
+		if (newItem == oldItem || !(newItem instanceof IDiffable)) return;
+		from.set(position, newItem);
+		IDiffable<T> diffable = (IDiffable<T>) newItem;
+		if (!diffable.isContentSameAs(oldItem)) {
+			Object payload = diffable.getChangePayload(oldItem);
+			if (DEBUG) Log.v(TAG, "animateRemovals change position=" + position + " payload=" + payload);
+			notifyItemChanged(position, payload);
+		}
+	}
+
 	/**
 	 * Find out all added items and animate them, update also existent positions with newItems.
 	 */
@@ -3220,11 +4281,72 @@ public class FlexibleAdapter<T extends IFlexible>
 	 * @param item the item to map
 	 */
 	private void mapViewTypeFrom(T item) {
-		if (item != null && !mTypeInstances.containsKey(item.getLayoutRes())) {
-			mTypeInstances.put(item.getLayoutRes(), item);
+		if (item == null) return;
+		int viewType = item.getLayoutRes();
+		if (mTypeInstances.get(viewType) == null) {
+			mTypeInstances.put(viewType, item);
+			getViewTypeBit(viewType);
+			if (mSharedViewPool != null) mSharedViewPool.registerViewType(item);
 			if (DEBUG)
-				Log.i(TAG, "Mapped viewType " + item.getLayoutRes() + " from " + item.getClass().getSimpleName());
+				Log.i(TAG, "Mapped viewType " + viewType + " from " + item.getClass().getSimpleName());
+		}
+	}
+
+	/**
+	 * Initializes the counts per view type, or rebuilds them if they are out of sync.
+	 */
+	private void syncTypeCounter() {
+		int itemCount = getItemCount();
+		if (mTypeCounter.isInitialized() && mTypeCounter.size() == itemCount) return;
+		int[] types = new int[itemCount];
+		for (int i = 0; i < itemCount; i++) {
+			types[i] = peekItemViewType(i);
+		}
+		mTypeCounter.init(types, itemCount);
+	}
+
+	/**
+	 * Assigns, if not assigned yet, a bit to the view type, used by the type masks.
+	 *
+	 * @param viewType the view type
+	 * @return the bit of the view type, a value greater than 63 cannot be used in the mask
+	 */
+	private int getViewTypeBit(int viewType) {
+		int bit = mTypeBits.get(viewType, -1);
+		if (bit < 0) {
+			bit = mTypeBits.size();
+			mTypeBits.put(viewType, bit);
+		}
+		return bit;
+	}
+
+	/**
+	 * @param viewTypes the view types to include
+	 * @return the mask of the view types, or -1 if a view type cannot be represented
+	 */
+	private long getViewTypesMask(Integer... viewTypes) {
+		long mask = 0L;
+		for (int viewType : viewTypes) {
+			int bit = getViewTypeBit(viewType);
+			if (bit >= Long.SIZE) return -1L;
+			mask |= 1L << bit;
 		}
+		return mask;
+	}
+
+	/**
+	 * Checks the view type membership in O(1) with the mask, falls back to the linear search
+	 * only when more than 64 view types are in use.
+	 */
+	private boolean isViewTypeIn(int viewType, long mask, Integer... viewTypes) {
+		if (mask != -1L) {
+			int bit = mTypeBits.get(viewType, -1);
+			return bit >= 0 && bit < Long.SIZE && (mask & (1L << bit)) != 0;
+		}
+		for (int type : viewTypes) {
+			if (type == viewType) return true;
+		}
+		return false;
 	}
 
 	/**
@@ -3234,7 +4356,12 @@ public class FlexibleAdapter<T extends IFlexible>
 	 * @return the IFlexible instance, creator of the ViewType
 	 */
 	private T getViewTypeInstance(int viewType) {
-		return mTypeInstances.get(viewType);
+		T item = mTypeInstances.get(viewType);
+		if (item == null && mSharedViewPool != null) {
+			//View type mapped by another Adapter sharing the same pool
+			item = (T) mSharedViewPool.getViewTypeInstance(viewType);
+		}
+		return item;
 	}
 
 	/**
@@ -3449,6 +4576,22 @@ public class FlexibleAdapter<T extends IFlexible>
 		void onDeleteConfirmed();
 	}
 
+	/**
+	 * @since 19/10/2016
+	 */
+	public interface OnDeleteInBackgroundListener<T extends IFlexible> {
+		/**
+		 * Called from the purge Executor when Undo timeout is over, right after
+		 * {@link OnDeleteCompleteListener#onDeleteConfirmed()} has been called on the main thread.
+		 * <p>Here the removal can be committed in the user Database without blocking the UI.
+		 * The batch is not shared with the Adapter anymore and it cannot be modified.</p>
+		 *
+		 * @param deletedItems the immutable list of the deleted items
+		 * @see FlexibleAdapter#setPurgeExecutor(Executor, OnDeleteInBackgroundListener)
+		 */
+		void onDeleteConfirmedInBackground(List<T> deletedItems);
+	}
+
 	/**
 	 * @since 26/01/2016
 	 */
@@ -3566,6 +4709,17 @@ public class FlexibleAdapter<T extends IFlexible>
 		void onLoadMore();
 	}
 
+	/**
+	 * @since 19/10/2016
+	 */
+	public interface EndlessScrollTopListener {
+		/**
+		 * Loads more data to prepend at the top of the list.
+		 * <p>When loaded, call {@link #onLoadMoreTopComplete(List)}.</p>
+		 */
+		void onLoadMoreTop();
+	}
+
 	/**
 	 * Observer Class responsible to recalculate Selection and Expanded positions.
 	 */
@@ -3585,35 +4739,143 @@ public class FlexibleAdapter<T extends IFlexible>
 			}
 		}
 
+		private void updateTypeCounter(int positionStart, int itemCount, boolean inserted) {
+			if (!mTypeCounter.isInitialized()) return;
+			if (inserted) {
+				//Some insertions are notified at position+1 when appending
+				int start = Math.min(positionStart, mTypeCounter.size());
+				if (start + itemCount > getItemCount()) {
+					mTypeCounter.invalidate();
+					return;
+				}
+				for (int i = start; i < start + itemCount; i++) {
+					mTypeCounter.insert(i, peekItemViewType(i));
+				}
+			} else {
+				for (int i = 0; i < itemCount; i++) {
+					mTypeCounter.remove(positionStart);
+				}
+			}
+		}
+
 		/* Triggered by notifyDataSetChanged() */
 		@Override
 		public void onChanged() {
+			mTypeCounter.invalidate();
 			updateOrClearHeader();
 		}
 
 		@Override
 		public void onItemRangeInserted(int positionStart, int itemCount) {
 			adjustPositions(positionStart, itemCount);
+			updateTypeCounter(positionStart, itemCount, true);
 			updateOrClearHeader();
 		}
 
 		@Override
 		public void onItemRangeRemoved(int positionStart, int itemCount) {
 			adjustPositions(positionStart, -itemCount);
+			updateTypeCounter(positionStart, itemCount, false);
 			updateOrClearHeader();
 		}
 
 		@Override
 		public void onItemRangeChanged(int positionStart, int itemCount) {
+			if (mTypeCounter.isInitialized()) {
+				//The item might have been replaced by an item of another type
+				int end = Math.min(positionStart + itemCount, getItemCount());
+				for (int i = positionStart; i < end; i++) {
+					mTypeCounter.change(i, peekItemViewType(i));
+				}
+			}
 			updateOrClearHeader();
 		}
 
 		@Override
 		public void onItemRangeMoved(int fromPosition, int toPosition, int itemCount) {
+			if (mTypeCounter.isInitialized()) mTypeCounter.move(fromPosition, toPosition);
 			updateOrClearHeader();
 		}
 	}
 
+	/**
+	 * Ordered by ascending score and, with the same score, by descending original position.
+	 */
+	private static class RankedItem<T> implements Comparable<RankedItem<T>> {
+		final T item;
+		final int score, field, position;
+
+		RankedItem(T item, int score, int field, int position) {
+			this.item = item;
+			this.score = score;
+			this.field = field;
+			this.position = position;
+		}
+
+		/**
+		 * Higher score first, then the match in the earlier field, then the earlier position.
+		 */
+		static int compare(int score, int field, int position, RankedItem another) {
+			if (score != another.score) return score < another.score ? -1 : 1;
+			if (field != another.field) return field > another.field ? -1 : 1;
+			return position > another.position ? -1 : (position < another.position ? 1 : 0);
+		}
+
+		@Override
+		public int compareTo(@NonNull RankedItem<T> another) {
+			return compare(score, field, position, another);
+		}
+	}
+
+	/**
+	 * Item instances of the view types to warm up and the inflater, read by the background
+	 * thread in place of the Adapter state.
+	 */
+	private static class WarmUpSnapshot<T> {
+		final SparseArray<T> instances = new SparseArray<T>();
+		final LayoutInflater inflater;
+
+		WarmUpSnapshot(LayoutInflater inflater) {
+			this.inflater = inflater;
+		}
+	}
+
+	/**
+	 * Key of the highlight cache: the item is compared by identity.
+	 */
+	private static class HighlightKey {
+		Object item;
+		String text;
+		SearchMatcher matcher;
+		int color;
+
+		HighlightKey(Object item, String text, SearchMatcher matcher, int color) {
+			set(item, text, matcher, color);
+		}
+
+		HighlightKey set(Object item, String text, SearchMatcher matcher, int color) {
+			this.item = item;
+			this.text = text;
+			this.matcher = matcher;
+			this.color = color;
+			return this;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) return true;
+			if (!(o instanceof HighlightKey)) return false;
+			HighlightKey other = (HighlightKey) o;
+			return item == other.item && color == other.color &&
+					text.equals(other.text) && matcher.equals(other.matcher);
+		}
+
+		@Override
+		public int hashCode() {
+			return (System.identityHashCode(item) * 31 + text.hashCode()) * 31 + color;
+		}
+	}
+
 	private class RestoreInfo {
 		// Positions
 		int refPosition = -1, relativePosition = -1;
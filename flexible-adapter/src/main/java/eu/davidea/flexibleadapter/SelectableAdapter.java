@@ -22,12 +22,12 @@ import android.support.v7.widget.GridLayoutManager;
 import android.support.v7.widget.RecyclerView;
 import android.support.v7.widget.StaggeredGridLayoutManager;
 import android.util.Log;
+import android.util.SparseBooleanArray;
 import android.view.View;
 
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
@@ -215,7 +215,8 @@ public abstract class SelectableAdapter extends RecyclerView.Adapter
 	 * @return true if the item is selected, false otherwise.
 	 */
 	public boolean isSelected(int position) {
-		return mSelectedPositions.contains(position);
+		//Avoid the boxing of the position while binding with no selection
+		return !mSelectedPositions.isEmpty() && mSelectedPositions.contains(position);
 	}
 
 	public abstract boolean isSelectable(int position);
@@ -282,12 +283,14 @@ public abstract class SelectableAdapter extends RecyclerView.Adapter
 	 */
 	public void selectAll(Integer... viewTypes) {
 		mSelectAll = true;
-		List<Integer> viewTypesToSelect = Arrays.asList(viewTypes);
+		//Primitive keys: no boxing while checking each item
+		SparseBooleanArray viewTypesToSelect = new SparseBooleanArray(viewTypes.length);
+		for (int viewType : viewTypes) viewTypesToSelect.put(viewType, true);
 		if (DEBUG) Log.v(TAG, "selectAll ViewTypes to include " + viewTypesToSelect);
 		int positionStart = 0, itemCount = 0;
 		for (int i = 0; i < getItemCount(); i++) {
 			if (isSelectable(i) &&
-					(viewTypesToSelect.isEmpty() || viewTypesToSelect.contains(getItemViewType(i)))) {
+					(viewTypes.length == 0 || viewTypesToSelect.get(getItemViewType(i)))) {
 				mSelectedPositions.add(i);
 				itemCount++;
 			} else {
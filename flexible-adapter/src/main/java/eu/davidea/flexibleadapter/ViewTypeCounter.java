@@ -0,0 +1,346 @@
+/*
+ * Copyright 2016 Davide Steduto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.davidea.flexibleadapter;
+
+import android.util.SparseIntArray;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps the view type of each position and the number of items per view type, updated
+ * incrementally by the notifications of the Adapter.
+ * <p>The positions are split in blocks of about &radic;n items, each block with its own counts
+ * per view type: prefix counts, insertions, removals and moves anywhere in the list cost
+ * O(&radic;n), without rebuilding the counts. The blocks are split when full, merged when
+ * small and rebalanced when the size changes by a factor of 4.</p>
+ * The same blocks also answer the prefix sums of a weight per view type, ex. the estimated
+ * heights of the {@link eu.davidea.fastscroller.FastScroller}: a new weight is applied at the
+ * next query, without rebuilding anything.
+ *
+ * @author Davide Steduto
+ * @since 19/10/2016 Created
+ */
+@SuppressWarnings("Convert2Diamond")
+public final class ViewTypeCounter {
+
+	private static final int MIN_BLOCK_SIZE = 32;
+
+	private int mSize = -1;//-1 = not initialized
+	private int mBlockSize = MIN_BLOCK_SIZE;
+	private final SparseIntArray mCounts = new SparseIntArray();
+	private final List<Block> mBlocks = new ArrayList<Block>();
+
+	//Start position of the block returned by the last findBlock()
+	private int mFoundStart;
+
+	/**
+	 * @return true if the view types have been provided with {@link #init(int[], int)}
+	 */
+	public boolean isInitialized() {
+		return mSize >= 0;
+	}
+
+	public int size() {
+		return mSize;
+	}
+
+	/**
+	 * Discards all the view types, to call when the positions are out of sync.
+	 */
+	public void invalidate() {
+		mSize = -1;
+		mCounts.clear();
+		mBlocks.clear();
+	}
+
+	/**
+	 * @param types the view type of each position
+	 * @param size  the number of positions to read from the array
+	 */
+	public void init(int[] types, int size) {
+		mCounts.clear();
+		mBlocks.clear();
+		mBlockSize = Math.max(MIN_BLOCK_SIZE, (int) Math.sqrt(size));
+		for (int start = 0; start < size; start += mBlockSize) {
+			Block block = new Block(mBlockSize * 2);
+			int count = Math.min(mBlockSize, size - start);
+			for (int i = 0; i < count; i++) {
+				block.add(i, types[start + i]);
+			}
+			mBlocks.add(block);
+		}
+		for (int i = 0; i < size; i++) {
+			mCounts.put(types[i], mCounts.get(types[i]) + 1);
+		}
+		mSize = size;
+	}
+
+	public int countOf(int viewType) {
+		return mCounts.get(viewType);
+	}
+
+	/**
+	 * @return the number of items of the view type in the positions [0, position)
+	 */
+	public int countOfUntil(int viewType, int position) {
+		if (position >= mSize) return countOf(viewType);
+		if (position <= 0 || mCounts.get(viewType) == 0) return 0;
+		int count = 0, start = 0;
+		for (int b = 0; b < mBlocks.size(); b++) {
+			Block block = mBlocks.get(b);
+			if (start + block.size <= position) {
+				count += block.counts.get(viewType);
+				start += block.size;
+				continue;
+			}
+			for (int i = 0; i < position - start; i++) {
+				if (block.types[i] == viewType) count++;
+			}
+			break;
+		}
+		return count;
+	}
+
+	/**
+	 * @param position the position of the new item, positions after the end are appended
+	 * @param viewType the view type of the new item
+	 */
+	public void insert(int position, int viewType) {
+		if (position > mSize) position = mSize;
+		if (mBlocks.isEmpty()) mBlocks.add(new Block(mBlockSize * 2));
+		int b = findBlock(position);
+		Block block = mBlocks.get(b);
+		if (block.size == block.types.length) {
+			split(b);
+			b = findBlock(position);
+			block = mBlocks.get(b);
+		}
+		block.add(position - mFoundStart, viewType);
+		mCounts.put(viewType, mCounts.get(viewType) + 1);
+		mSize++;
+		if (mSize > mBlockSize * mBlockSize * 4) rebalance();
+	}
+
+	public void remove(int position) {
+		if (position < 0 || position >= mSize) return;
+		int b = findBlock(position);
+		Block block = mBlocks.get(b);
+		int viewType = block.remove(position - mFoundStart);
+		mCounts.put(viewType, mCounts.get(viewType) - 1);
+		mSize--;
+		if (block.size == 0 && mBlocks.size() > 1) {
+			mBlocks.remove(b);
+		} else if (block.size < mBlockSize / 2) {
+			//Merge with a neighbour if both are small
+			if (b + 1 < mBlocks.size() && block.size + mBlocks.get(b + 1).size <= mBlockSize) {
+				merge(b);
+			} else if (b > 0 && block.size + mBlocks.get(b - 1).size <= mBlockSize) {
+				merge(b - 1);
+			}
+		}
+		if (mBlockSize > MIN_BLOCK_SIZE && mBlockSize * mBlockSize > mSize * 4) rebalance();
+	}
+
+	public void change(int position, int viewType) {
+		if (position < 0 || position >= mSize) return;
+		Block block = mBlocks.get(findBlock(position));
+		int offset = position - mFoundStart;
+		int oldViewType = block.types[offset];
+		if (oldViewType == viewType) return;
+		block.types[offset] = viewType;
+		block.counts.put(oldViewType, block.counts.get(oldViewType) - 1);
+		block.counts.put(viewType, block.counts.get(viewType) + 1);
+		mCounts.put(oldViewType, mCounts.get(oldViewType) - 1);
+		mCounts.put(viewType, mCounts.get(viewType) + 1);
+	}
+
+	/**
+	 * Moves one item, as notified by {@code notifyItemMoved()}.
+	 */
+	public void move(int fromPosition, int toPosition) {
+		if (fromPosition < 0 || fromPosition >= mSize || toPosition < 0 || toPosition >= mSize) return;
+		if (fromPosition == toPosition) return;
+		Block block = mBlocks.get(findBlock(fromPosition));
+		int viewType = block.types[fromPosition - mFoundStart];
+		remove(fromPosition);
+		insert(toPosition, viewType);
+	}
+
+	/**
+	 * @param position the end of the range, excluded
+	 * @param weigher  the weight of each view type
+	 * @return the sum of the weights of the items in the positions [0, position)
+	 */
+	public float weightUntil(int position, Weigher weigher) {
+		float weight = 0;
+		int start = 0;
+		for (int b = 0; b < mBlocks.size() && start < position; b++) {
+			Block block = mBlocks.get(b);
+			if (start + block.size <= position) {
+				weight += block.weight(weigher);
+				start += block.size;
+				continue;
+			}
+			for (int i = 0; i < position - start; i++) {
+				weight += weigher.weightOf(block.types[i]);
+			}
+			break;
+		}
+		return weight;
+	}
+
+	/**
+	 * Inverse of {@link #weightUntil(int, Weigher)}, the weights must not be negative.
+	 *
+	 * @param weight  the target weight
+	 * @param weigher the weight of each view type
+	 * @return the last position whose preceding items weigh no more than the target weight,
+	 * 0 if the list is empty
+	 */
+	public int positionOfWeight(float weight, Weigher weigher) {
+		float total = 0;
+		int start = 0;
+		for (int b = 0; b < mBlocks.size(); b++) {
+			Block block = mBlocks.get(b);
+			float blockWeight = block.weight(weigher);
+			if (total + blockWeight <= weight) {
+				total += blockWeight;
+				start += block.size;
+				continue;
+			}
+			for (int i = 0; i < block.size; i++) {
+				total += weigher.weightOf(block.types[i]);
+				if (total > weight) return start + i;
+			}
+			start += block.size;
+		}
+		return Math.max(0, mSize - 1);
+	}
+
+	/**
+	 * Finds the block containing the position, the end of the list belongs to the last block.
+	 * The start position of the block is saved in {@link #mFoundStart}.
+	 *
+	 * @return the index of the block
+	 */
+	private int findBlock(int position) {
+		int last = mBlocks.size() - 1;
+		//Appends are the most frequent operations
+		int lastStart = mSize - mBlocks.get(last).size;
+		if (position >= lastStart) {
+			mFoundStart = lastStart;
+			return last;
+		}
+		int start = 0;
+		for (int b = 0; b < last; b++) {
+			int size = mBlocks.get(b).size;
+			if (position < start + size) {
+				mFoundStart = start;
+				return b;
+			}
+			start += size;
+		}
+		mFoundStart = start;
+		return last;
+	}
+
+	/**
+	 * Moves the upper half of the block in a new block.
+	 */
+	private void split(int b) {
+		Block block = mBlocks.get(b);
+		Block upper = new Block(block.types.length);
+		int half = block.size / 2;
+		while (block.size > half) {
+			upper.add(0, block.remove(block.size - 1));
+		}
+		mBlocks.add(b + 1, upper);
+	}
+
+	/**
+	 * Appends the block following b into b.
+	 */
+	private void merge(int b) {
+		Block block = mBlocks.get(b);
+		Block next = mBlocks.remove(b + 1);
+		for (int i = 0; i < next.size; i++) {
+			block.add(block.size, next.types[i]);
+		}
+	}
+
+	/**
+	 * Rebuilds the blocks with the block size of the current size.
+	 */
+	private void rebalance() {
+		int[] types = new int[mSize];
+		int start = 0;
+		for (Block block : mBlocks) {
+			System.arraycopy(block.types, 0, types, start, block.size);
+			start += block.size;
+		}
+		init(types, mSize);
+	}
+
+	/**
+	 * Sequence of view types of a range of positions, with the counts per view type.
+	 */
+	private static final class Block {
+		final int[] types;
+		final SparseIntArray counts = new SparseIntArray();
+		int size;
+
+		Block(int capacity) {
+			types = new int[capacity];
+		}
+
+		void add(int offset, int viewType) {
+			System.arraycopy(types, offset, types, offset + 1, size - offset);
+			types[offset] = viewType;
+			size++;
+			counts.put(viewType, counts.get(viewType) + 1);
+		}
+
+		int remove(int offset) {
+			int viewType = types[offset];
+			System.arraycopy(types, offset + 1, types, offset, size - offset - 1);
+			size--;
+			counts.put(viewType, counts.get(viewType) - 1);
+			return viewType;
+		}
+
+		float weight(Weigher weigher) {
+			float weight = 0;
+			for (int i = 0; i < counts.size(); i++) {
+				int count = counts.valueAt(i);
+				if (count > 0) weight += count * weigher.weightOf(counts.keyAt(i));
+			}
+			return weight;
+		}
+	}
+
+	/**
+	 * Provides the weight of the items of a view type.
+	 */
+	public interface Weigher {
+		/**
+		 * @param viewType the view type
+		 * @return the weight of each item of the view type, not negative
+		 */
+		float weightOf(int viewType);
+	}
+
+}
@@ -0,0 +1,283 @@
+/*
+ * Copyright 2016 Davide Steduto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.davidea.flexibleadapter.common;
+
+import android.support.annotation.IntRange;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.v7.widget.RecyclerView;
+import android.util.Log;
+import android.util.SparseArray;
+
+import eu.davidea.flexibleadapter.FlexibleAdapter;
+import eu.davidea.flexibleadapter.items.IFlexible;
+
+/**
+ * A {@link RecyclerView.RecycledViewPool} that can be shared between multiple
+ * {@link FlexibleAdapter}s (ex. tabs or nested horizontal lists), together with the registry of
+ * the view types, so that identical item layouts are inflated only once and reused by all lists.
+ * <p>The maximum number of recycled ViewHolders can be configured per view type or for all view
+ * types, and each view type keeps the statistics of its ViewHolders (created, reused, recycled,
+ * discarded and missed).</p>
+ * Usage:
+ * <pre>
+ * FlexibleViewPool viewPool = new FlexibleViewPool();
+ * adapter1.setSharedViewPool(viewPool);
+ * adapter2.setSharedViewPool(viewPool);</pre>
+ *
+ * @author Davide Steduto
+ * @see FlexibleAdapter#setSharedViewPool(FlexibleViewPool)
+ * @since 19/10/2016 Created
+ */
+@SuppressWarnings({"unused", "Convert2Diamond"})
+public class FlexibleViewPool extends RecyclerView.RecycledViewPool {
+
+	private static final String TAG = FlexibleViewPool.class.getSimpleName();
+	public static final int DEFAULT_MAX_RECYCLED_VIEWS = 5;
+
+	private SparseArray<IFlexible> mTypeInstances = new SparseArray<IFlexible>();
+	private SparseArray<Stats> mStats = new SparseArray<Stats>();
+	private int mDefaultMaxRecycledViews = DEFAULT_MAX_RECYCLED_VIEWS;
+
+	/*-------------------*/
+	/* VIEW TYPE METHODS */
+	/*-------------------*/
+
+	/**
+	 * Registers the item as creator of its view type, if not registered yet.
+	 *
+	 * @param item the item to register
+	 */
+	public void registerViewType(@NonNull IFlexible item) {
+		int viewType = item.getLayoutRes();
+		if (mTypeInstances.get(viewType) == null) {
+			mTypeInstances.put(viewType, item);
+			if (FlexibleAdapter.DEBUG)
+				Log.i(TAG, "Registered viewType " + viewType + " from " + item.getClass().getSimpleName());
+		}
+	}
+
+	/**
+	 * @param viewType the view type
+	 * @return the item instance, creator of the view type, null if not registered
+	 */
+	@Nullable
+	public IFlexible getViewTypeInstance(int viewType) {
+		return mTypeInstances.get(viewType);
+	}
+
+	/*------------------*/
+	/* CAPACITY METHODS */
+	/*------------------*/
+
+	/**
+	 * Sets the maximum number of recycled ViewHolders for the view types without a specific
+	 * limit. It must be set before the pool is used.
+	 * <p>Default value is {@link #DEFAULT_MAX_RECYCLED_VIEWS}.</p>
+	 *
+	 * @param max the maximum number of recycled ViewHolders for each view type
+	 * @return this object, so it can be chained
+	 */
+	public FlexibleViewPool setDefaultMaxRecycledViews(@IntRange(from = 0) int max) {
+		mDefaultMaxRecycledViews = Math.max(0, max);
+		return this;
+	}
+
+	@Override
+	public void setMaxRecycledViews(int viewType, int max) {
+		getStats(viewType).maxRecycled = max;
+		super.setMaxRecycledViews(viewType, max);
+	}
+
+	/**
+	 * @param viewType the view type
+	 * @return the maximum number of recycled ViewHolders for the view type
+	 */
+	public int getMaxRecycledViews(int viewType) {
+		return getStats(viewType).maxRecycled;
+	}
+
+	/*---------------*/
+	/* POOL OVERRIDE */
+	/*---------------*/
+
+	@Override
+	public RecyclerView.ViewHolder getRecycledView(int viewType) {
+		RecyclerView.ViewHolder holder = super.getRecycledView(viewType);
+		Stats stats = getStats(viewType);
+		if (holder != null) {
+			stats.reused++;
+			stats.resident = Math.max(0, stats.resident - 1);
+		} else {
+			stats.missed++;
+		}
+		return holder;
+	}
+
+	@Override
+	public void putRecycledView(RecyclerView.ViewHolder holder) {
+		Stats stats = getStats(holder.getItemViewType());
+		if (stats.resident < stats.maxRecycled) {
+			stats.recycled++;
+			stats.resident++;
+		} else {
+			stats.discarded++;
+		}
+		super.putRecycledView(holder);
+	}
+
+	@Override
+	public void clear() {
+		for (int i = 0; i < mStats.size(); i++) {
+			mStats.valueAt(i).resident = 0;
+		}
+		super.clear();
+	}
+
+	/**
+	 * Called by the Adapter each time a new ViewHolder is created (inflated).
+	 *
+	 * @param viewType the view type of the new ViewHolder
+	 */
+	public void onViewHolderCreated(int viewType) {
+		getStats(viewType).created++;
+	}
+
+	/*---------------*/
+	/* STATS METHODS */
+	/*---------------*/
+
+	/**
+	 * @param viewType the view type
+	 * @return a copy of the current statistics of the view type
+	 */
+	@NonNull
+	public Stats getStatsOf(int viewType) {
+		return new Stats(getStats(viewType));
+	}
+
+	/**
+	 * Resets the statistics of all view types.
+	 */
+	public void resetStats() {
+		for (int i = 0; i < mStats.size(); i++) {
+			Stats stats = mStats.valueAt(i);
+			stats.created = stats.reused = stats.recycled = stats.discarded = stats.missed = 0;
+		}
+	}
+
+	private Stats getStats(int viewType) {
+		Stats stats = mStats.get(viewType);
+		if (stats == null) {
+			stats = new Stats(viewType, mDefaultMaxRecycledViews);
+			mStats.put(viewType, stats);
+			super.setMaxRecycledViews(viewType, mDefaultMaxRecycledViews);
+		}
+		return stats;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder(TAG).append("[");
+		for (int i = 0; i < mStats.size(); i++) {
+			if (i > 0) sb.append(", ");
+			sb.append(mStats.valueAt(i));
+		}
+		return sb.append("]").toString();
+	}
+
+	/*---------------*/
+	/* INNER CLASSES */
+	/*---------------*/
+
+	/**
+	 * Statistics of the ViewHolders of a view type.
+	 */
+	public static class Stats {
+		final int viewType;
+		int maxRecycled, resident, created, reused, recycled, discarded, missed;
+
+		Stats(int viewType, int maxRecycled) {
+			this.viewType = viewType;
+			this.maxRecycled = maxRecycled;
+		}
+
+		Stats(Stats stats) {
+			this.viewType = stats.viewType;
+			this.maxRecycled = stats.maxRecycled;
+			this.resident = stats.resident;
+			this.created = stats.created;
+			this.reused = stats.reused;
+			this.recycled = stats.recycled;
+			this.discarded = stats.discarded;
+			this.missed = stats.missed;
+		}
+
+		public int getViewType() {
+			return viewType;
+		}
+
+		/**
+		 * @return the number of ViewHolders currently in the pool
+		 */
+		public int getResidentCount() {
+			return resident;
+		}
+
+		/**
+		 * @return the number of ViewHolders created (inflated) by the Adapters
+		 */
+		public int getCreatedCount() {
+			return created;
+		}
+
+		/**
+		 * @return the number of ViewHolders taken from the pool
+		 */
+		public int getReusedCount() {
+			return reused;
+		}
+
+		/**
+		 * @return the number of ViewHolders put in the pool
+		 */
+		public int getRecycledCount() {
+			return recycled;
+		}
+
+		/**
+		 * @return the number of ViewHolders discarded because the pool was full
+		 */
+		public int getDiscardedCount() {
+			return discarded;
+		}
+
+		/**
+		 * @return the number of requests to the pool that didn't find a ViewHolder
+		 */
+		public int getMissedCount() {
+			return missed;
+		}
+
+		@Override
+		public String toString() {
+			return "viewType=" + viewType + " max=" + maxRecycled + " resident=" + resident +
+					" created=" + created + " reused=" + reused + " recycled=" + recycled +
+					" discarded=" + discarded + " missed=" + missed;
+		}
+	}
+
+}
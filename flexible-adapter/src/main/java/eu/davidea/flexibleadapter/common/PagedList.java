@@ -0,0 +1,643 @@
+/*
+ * Copyright 2016 Davide Steduto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.davidea.flexibleadapter.common;
+
+import android.os.AsyncTask;
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.IntRange;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.v7.widget.RecyclerView;
+import android.util.Log;
+import android.util.SparseBooleanArray;
+import android.util.SparseIntArray;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Executor;
+
+import eu.davidea.flexibleadapter.FlexibleAdapter;
+import eu.davidea.flexibleadapter.items.IFlexible;
+
+/**
+ * Read-only List of a known total size, backed by fixed-size pages loaded on demand.
+ * <p>Only the most recently used pages are kept in memory (LRU), all the other positions are
+ * represented by placeholder items. Missing pages are requested to the {@link PageLoader}
+ * from a background Executor, when the position is bound by the Adapter.</p>
+ * The page state is synchronized: from a background thread, {@link #get(int)} behaves as
+ * {@link #peek(int)} and never requests a page.
+ * Pass an instance of this class to the {@link FlexibleAdapter} constructor to activate the
+ * paged mode: the Adapter will display {@link #size()} items and it will be notified when
+ * each page is loaded.
+ * <p>A page that fails to load is retried with exponential backoff, then it is marked as
+ * failed: see {@link #isFailed(int)} and {@link #retryFailedPages()}.</p>
+ * <b>NOTE:</b> Adding, removing, moving items is not supported, as well as filtering,
+ * expandable items, headers and endless scrolling: use {@link #setTotalCount(int)} and
+ * {@link #invalidate()} to change the content.
+ *
+ * @author Davide Steduto
+ * @since 19/10/2016 Created
+ */
+@SuppressWarnings({"unused", "Convert2Diamond"})
+public class PagedList<T extends IFlexible> extends AbstractList<T> {
+
+	private static final String TAG = PagedList.class.getSimpleName();
+	public static final int DEFAULT_MAX_PAGES = 5;
+	public static final int DEFAULT_MAX_RETRIES = 3;
+	public static final long DEFAULT_RETRY_DELAY = 500L;
+
+	private final int mPageSize;
+	private volatile int mTotalCount;
+	private int mMaxPages = DEFAULT_MAX_PAGES, mPrefetchDistance;
+	private int mMaxRetries = DEFAULT_MAX_RETRIES;
+	private long mRetryDelay = DEFAULT_RETRY_DELAY;
+	private final PlaceholderFactory<T> mPlaceholderFactory;
+	private final PageLoader<T> mPageLoader;
+	private Executor mExecutor = AsyncTask.THREAD_POOL_EXECUTOR;
+	private final Handler mHandler = new Handler(Looper.getMainLooper());
+	private RecyclerView.Adapter mAdapter;
+
+	/**
+	 * Resident pages in access order, the eldest page is evicted first.
+	 */
+	private final LinkedHashMap<Integer, List<T>> mPages;
+
+	/**
+	 * Placeholders of the non-resident pages, bounded as the resident pages: each position
+	 * has its own placeholder instance.
+	 */
+	private final LinkedHashMap<Integer, List<T>> mPlaceholderPages;
+
+	/**
+	 * Page evicted by the last insertion, -1 if none.
+	 */
+	private int mEvictedPage = -1;
+
+	/**
+	 * Pages currently requested to the loader or waiting for a retry.
+	 */
+	private final SparseBooleanArray mPagesInFlight = new SparseBooleanArray();
+
+	/**
+	 * Failed attempts of the pages waiting for a retry.
+	 */
+	private final SparseIntArray mPageAttempts = new SparseIntArray();
+
+	/**
+	 * Pages that failed all the attempts, not requested again until {@link #retryFailedPages()}.
+	 */
+	private final SparseBooleanArray mFailedPages = new SparseBooleanArray();
+
+	/**
+	 * Placeholder representative of the positions whose placeholders are not created.
+	 */
+	private T mPlaceholderPrototype;
+
+	/**
+	 * Incremented at each invalidation: pages of previous generations are discarded.
+	 */
+	private int mGeneration = 0;
+
+	/*--------------*/
+	/* CONSTRUCTORS */
+	/*--------------*/
+
+	/**
+	 * @param totalCount         the total number of items in the data source
+	 * @param pageSize           the number of items of each page
+	 * @param placeholderFactory creates the items displayed for the positions not yet loaded
+	 * @param pageLoader         the loader invoked in background for the missing pages
+	 */
+	public PagedList(@IntRange(from = 0) int totalCount, @IntRange(from = 1) int pageSize,
+					 @NonNull PlaceholderFactory<T> placeholderFactory, @NonNull PageLoader<T> pageLoader) {
+		if (pageSize < 1) throw new IllegalArgumentException("PageSize must be greater than 0");
+		mTotalCount = Math.max(0, totalCount);
+		mPageSize = pageSize;
+		mPrefetchDistance = pageSize / 2;
+		mPlaceholderFactory = placeholderFactory;
+		mPageLoader = pageLoader;
+		mPages = new LinkedHashMap<Integer, List<T>>(DEFAULT_MAX_PAGES + 1, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Integer, List<T>> eldest) {
+				boolean evict = size() > mMaxPages;
+				if (evict) {
+					if (FlexibleAdapter.DEBUG) Log.v(TAG, "Evicted page " + eldest.getKey());
+					mEvictedPage = eldest.getKey();
+				}
+				return evict;
+			}
+		};
+		mPlaceholderPages = new LinkedHashMap<Integer, List<T>>(DEFAULT_MAX_PAGES + 1, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Integer, List<T>> eldest) {
+				return size() > mMaxPages;
+			}
+		};
+	}
+
+	/*-----------------------*/
+	/* CONFIGURATION SETTERS */
+	/*-----------------------*/
+
+	/**
+	 * Binds the Adapter to notify when pages are loaded.
+	 * <p>This method is automatically called by the {@link FlexibleAdapter} constructor.</p>
+	 *
+	 * @param adapter the Adapter displaying this list
+	 */
+	public void setAdapter(@Nullable RecyclerView.Adapter adapter) {
+		mAdapter = adapter;
+	}
+
+	/**
+	 * Sets the maximum number of pages kept in memory.
+	 * <p>Default value is {@link #DEFAULT_MAX_PAGES}. Must be large enough to contain all the
+	 * visible items plus the prefetch distance.</p>
+	 *
+	 * @param maxPages minimum 2 pages
+	 * @return this PagedList, so the call can be chained
+	 */
+	public PagedList<T> setMaxResidentPages(@IntRange(from = 2) int maxPages) {
+		synchronized (mPages) {
+			mMaxPages = Math.max(2, maxPages);
+		}
+		return this;
+	}
+
+	/**
+	 * Sets the distance, in number of items, from the page boundary within which the adjacent
+	 * page is requested in advance.
+	 * <p>Default value is half page size.</p>
+	 *
+	 * @param prefetchDistance any non negative number of items, 0 to disable the prefetch
+	 * @return this PagedList, so the call can be chained
+	 */
+	public PagedList<T> setPrefetchDistance(@IntRange(from = 0) int prefetchDistance) {
+		mPrefetchDistance = Math.max(0, prefetchDistance);
+		return this;
+	}
+
+	/**
+	 * Sets the Executor on which the {@link PageLoader} is invoked.
+	 * <p>Default value is {@link AsyncTask#THREAD_POOL_EXECUTOR}.</p>
+	 *
+	 * @param executor the background Executor
+	 * @return this PagedList, so the call can be chained
+	 */
+	public PagedList<T> setExecutor(@NonNull Executor executor) {
+		mExecutor = executor;
+		return this;
+	}
+
+	/**
+	 * Sets the retry policy in case of error: the delay is doubled at each attempt. While
+	 * waiting for a retry, the page is not requested again by the Adapter.
+	 * <p>Default values are {@link #DEFAULT_MAX_RETRIES} and {@link #DEFAULT_RETRY_DELAY}.</p>
+	 *
+	 * @param maxRetries the maximum number of retries, 0 to not retry
+	 * @param retryDelay the delay in milliseconds before the first retry
+	 * @return this PagedList, so the call can be chained
+	 */
+	public PagedList<T> setRetryPolicy(@IntRange(from = 0) int maxRetries,
+									   @IntRange(from = 0) long retryDelay) {
+		synchronized (mPages) {
+			mMaxRetries = Math.max(0, maxRetries);
+			mRetryDelay = Math.max(0L, retryDelay);
+		}
+		return this;
+	}
+
+	public int getPageSize() {
+		return mPageSize;
+	}
+
+
+	/*--------------*/
+	/* MAIN METHODS */
+	/*--------------*/
+
+	@Override
+	public int size() {
+		return mTotalCount;
+	}
+
+	/**
+	 * Returns the item at the specified position, if its page is resident. Otherwise a
+	 * placeholder is returned and the page is requested to the loader.
+	 * <p>Adjacent pages are also requested if position is within the prefetch distance.</p>
+	 * Pages are requested only from the main thread, from other threads this method is
+	 * the same as {@link #peek(int)}.
+	 *
+	 * @param position the position of the item
+	 * @return the item or the placeholder if not loaded yet
+	 */
+	@Override
+	public T get(int position) {
+		if (Looper.myLooper() != Looper.getMainLooper()) return peek(position);
+		checkPosition(position);
+		int page = position / mPageSize;
+		if (mPrefetchDistance > 0) {
+			int offset = position % mPageSize;
+			if (offset < mPrefetchDistance && page > 0)
+				requestPage(page - 1);
+			else if (offset >= mPageSize - mPrefetchDistance && (page + 1) * mPageSize < mTotalCount)
+				requestPage(page + 1);
+		}
+		//Marks the page as most recently used or requests it
+		requestPage(page);
+		return peek(position);
+	}
+
+	/**
+	 * Returns the item at the specified position without requesting its page.
+	 *
+	 * @param position the position of the item
+	 * @return the item or the placeholder if its page is not resident
+	 */
+	public T peek(int position) {
+		checkPosition(position);
+		int pageIndex = position / mPageSize;
+		int offset = position % mPageSize;
+		synchronized (mPages) {
+			//Do not alter the access order of the LRU
+			List<T> page = getPageNoTouch(mPages, pageIndex);
+			if (page != null && offset < page.size()) return page.get(offset);
+			return getPlaceholder(pageIndex, offset);
+		}
+	}
+
+	/**
+	 * Same as {@link #peek(int)}, but the placeholders of a non-resident page are not created:
+	 * a single prototype placeholder is returned instead. Used by the Adapter to scan the view
+	 * types of all positions, without creating a placeholder for each of them.
+	 *
+	 * @param position the position of the item
+	 * @return the item, its placeholder if already created, or the prototype placeholder
+	 * @see PlaceholderFactory
+	 */
+	public T peekForViewType(int position) {
+		checkPosition(position);
+		int pageIndex = position / mPageSize;
+		int offset = position % mPageSize;
+		synchronized (mPages) {
+			List<T> page = getPageNoTouch(mPages, pageIndex);
+			if (page != null && offset < page.size()) return page.get(offset);
+			page = getPageNoTouch(mPlaceholderPages, pageIndex);
+			if (page != null) return page.get(offset);
+			if (mPlaceholderPrototype == null) {
+				mPlaceholderPrototype = mPlaceholderFactory.createPlaceholder(position);
+				mPlaceholderPrototype.setEnabled(false);
+			}
+			return mPlaceholderPrototype;
+		}
+	}
+
+	/**
+	 * @param position the position of the item
+	 * @return true if the page of the position is resident, false otherwise
+	 */
+	public boolean isLoaded(int position) {
+		if (position < 0 || position >= mTotalCount) return false;
+		synchronized (mPages) {
+			List<T> page = getPageNoTouch(mPages, position / mPageSize);
+			return page != null && position % mPageSize < page.size();
+		}
+	}
+
+	/**
+	 * @param position the position of the item
+	 * @return true if the page of the position failed all the attempts, false otherwise
+	 * @see #retryFailedPages()
+	 */
+	public boolean isFailed(int position) {
+		if (position < 0 || position >= mTotalCount) return false;
+		synchronized (mPages) {
+			return mFailedPages.get(position / mPageSize);
+		}
+	}
+
+	/**
+	 * Allows the failed pages to be requested again: their positions are notified as changed,
+	 * so the visible ones are requested as soon as they are rebound.
+	 */
+	public void retryFailedPages() {
+		int[] failedPages;
+		synchronized (mPages) {
+			failedPages = new int[mFailedPages.size()];
+			for (int i = 0; i < failedPages.length; i++) {
+				failedPages[i] = mFailedPages.keyAt(i);
+			}
+			mFailedPages.clear();
+		}
+		for (int page : failedPages) notifyPageChanged(page);
+	}
+
+	/**
+	 * Only resident pages and placeholders are scanned, no page is requested.
+	 */
+	@Override
+	public int indexOf(Object object) {
+		if (object == null) return -1;
+		synchronized (mPages) {
+			int position = indexOf(mPages, object, false);
+			return position >= 0 ? position : indexOf(mPlaceholderPages, object, false);
+		}
+	}
+
+	@Override
+	public int lastIndexOf(Object object) {
+		if (object == null) return -1;
+		synchronized (mPages) {
+			int position = indexOf(mPages, object, true);
+			return position >= 0 ? position : indexOf(mPlaceholderPages, object, true);
+		}
+	}
+
+	@Override
+	public boolean contains(Object object) {
+		return indexOf(object) >= 0;
+	}
+
+	/**
+	 * Iterates all positions without requesting any page: not resident positions are
+	 * returned as placeholder.
+	 */
+	@NonNull
+	@Override
+	public Iterator<T> iterator() {
+		return new Iterator<T>() {
+			int position = 0;
+
+			@Override
+			public boolean hasNext() {
+				return position < mTotalCount;
+			}
+
+			@Override
+			public T next() {
+				if (!hasNext()) throw new NoSuchElementException();
+				return peek(position++);
+			}
+
+			@Override
+			public void remove() {
+				throw new UnsupportedOperationException("PagedList is read-only");
+			}
+		};
+	}
+
+	/**
+	 * Changes the total number of items and notifies the Adapter.
+	 * <p>Resident pages are kept: call {@link #invalidate()} if the content changed as well.</p>
+	 *
+	 * @param totalCount the new total number of items
+	 */
+	public void setTotalCount(@IntRange(from = 0) int totalCount) {
+		synchronized (mPages) {
+			mTotalCount = Math.max(0, totalCount);
+			mPlaceholderPages.clear();//The last page might have a different size
+		}
+		if (mAdapter != null) mAdapter.notifyDataSetChanged();
+	}
+
+	/**
+	 * Discards all resident pages and ignores the pages currently in flight.
+	 * <p>Visible positions are displayed as placeholder until they are loaded again.</p>
+	 */
+	public void invalidate() {
+		if (FlexibleAdapter.DEBUG) Log.v(TAG, "Invalidate all pages");
+		synchronized (mPages) {
+			mGeneration++;
+			mPages.clear();
+			mPlaceholderPages.clear();
+			mPagesInFlight.clear();
+			mPageAttempts.clear();
+			mFailedPages.clear();
+		}
+		//Pending retries belong to the previous generation
+		mHandler.removeCallbacksAndMessages(null);
+		if (mAdapter != null) mAdapter.notifyDataSetChanged();
+	}
+
+	/*-----------------*/
+	/* PRIVATE METHODS */
+	/*-----------------*/
+
+	private void checkPosition(int position) {
+		if (position < 0 || position >= mTotalCount)
+			throw new IndexOutOfBoundsException("Position " + position + " out of size " + mTotalCount);
+	}
+
+	/**
+	 * Must be called holding the lock.
+	 */
+	private List<T> getPageNoTouch(LinkedHashMap<Integer, List<T>> pages, int page) {
+		//Iteration doesn't alter the access order, get does
+		for (Map.Entry<Integer, List<T>> entry : pages.entrySet()) {
+			if (entry.getKey() == page) return entry.getValue();
+		}
+		return null;
+	}
+
+	/**
+	 * Must be called holding the lock.
+	 */
+	private int indexOf(LinkedHashMap<Integer, List<T>> pages, Object object, boolean last) {
+		int position = -1;
+		for (Map.Entry<Integer, List<T>> entry : pages.entrySet()) {
+			List<T> page = entry.getValue();
+			int index = last ? page.lastIndexOf(object) : page.indexOf(object);
+			if (index >= 0) {
+				int found = entry.getKey() * mPageSize + index;
+				if (position < 0 || (last ? found > position : found < position)) position = found;
+			}
+		}
+		return position;
+	}
+
+	/**
+	 * Must be called holding the lock.
+	 */
+	private T getPlaceholder(int pageIndex, int offset) {
+		List<T> page = getPageNoTouch(mPlaceholderPages, pageIndex);
+		if (page == null) {
+			int startPosition = pageIndex * mPageSize;
+			int count = Math.min(mPageSize, mTotalCount - startPosition);
+			page = new ArrayList<T>(count);
+			for (int i = 0; i < count; i++) {
+				T placeholder = mPlaceholderFactory.createPlaceholder(startPosition + i);
+				placeholder.setEnabled(false);
+				page.add(placeholder);
+			}
+			mPlaceholderPages.put(pageIndex, page);
+		}
+		return page.get(offset);
+	}
+
+	private void requestPage(final int page) {
+		final int generation, count;
+		final int startPosition = page * mPageSize;
+		synchronized (mPages) {
+			if (mPages.containsKey(page)) {
+				mPages.get(page);//Touch: most recently used
+				return;
+			}
+			if (mPagesInFlight.get(page) || mFailedPages.get(page)) return;
+			mPagesInFlight.put(page, true);
+			generation = mGeneration;
+			count = Math.min(mPageSize, mTotalCount - startPosition);
+		}
+		if (FlexibleAdapter.DEBUG) Log.v(TAG, "Requesting page " + page + " startPosition=" + startPosition);
+		loadPage(generation, page, startPosition, count);
+	}
+
+	private void loadPage(final int generation, final int page, final int startPosition, final int count) {
+		mExecutor.execute(new Runnable() {
+			@Override
+			public void run() {
+				List<T> items = null;
+				try {
+					items = mPageLoader.onLoadPage(page, startPosition, count);
+				} catch (Exception e) {
+					Log.w(TAG, "Error loading page " + page, e);
+				}
+				final List<T> result = items;
+				mHandler.post(new Runnable() {
+					@Override
+					public void run() {
+						onPageLoaded(generation, page, result);
+					}
+				});
+			}
+		});
+	}
+
+	private void onPageLoaded(int generation, int page, @Nullable List<T> items) {
+		int startPosition = page * mPageSize, evictedPage;
+		synchronized (mPages) {
+			if (generation != mGeneration) return;//Stale page
+			if (items == null) {
+				onPageFailed(generation, page);
+				return;
+			}
+			mPagesInFlight.delete(page);
+			mPageAttempts.delete(page);
+			if (startPosition >= mTotalCount) return;
+			if (FlexibleAdapter.DEBUG) Log.v(TAG, "Loaded page " + page + " items=" + items.size());
+			mEvictedPage = -1;
+			mPages.put(page, items);
+			mPlaceholderPages.remove(page);
+			evictedPage = mEvictedPage;
+		}
+		if (mAdapter != null) {
+			int count = Math.min(Math.min(mPageSize, items.size()), mTotalCount - startPosition);
+			mAdapter.notifyItemRangeChanged(startPosition, count);
+			//The evicted positions are now placeholders
+			if (evictedPage >= 0 && evictedPage * mPageSize < mTotalCount) {
+				int evictedStart = evictedPage * mPageSize;
+				mAdapter.notifyItemRangeChanged(evictedStart, Math.min(mPageSize, mTotalCount - evictedStart));
+			}
+		}
+	}
+
+	/**
+	 * Schedules the next attempt, the page stays in flight meanwhile. After the last attempt,
+	 * the page is marked as failed and its positions are notified, so the placeholders can
+	 * display the error.
+	 * <p>Must be called holding the lock.</p>
+	 */
+	private void onPageFailed(final int generation, final int page) {
+		final int startPosition = page * mPageSize;
+		int attempts = mPageAttempts.get(page) + 1;
+		if (attempts > mMaxRetries || startPosition >= mTotalCount) {
+			Log.e(TAG, "Error loading page " + page + ", giving up after " + attempts + " attempts");
+			mPagesInFlight.delete(page);
+			mPageAttempts.delete(page);
+			mFailedPages.put(page, true);
+			mHandler.post(new Runnable() {
+				@Override
+				public void run() {
+					notifyPageChanged(page);
+				}
+			});
+			return;
+		}
+		mPageAttempts.put(page, attempts);
+		long delay = mRetryDelay << (attempts - 1);
+		Log.w(TAG, "Error loading page " + page + ", retry in " + delay + "ms");
+		mHandler.postDelayed(new Runnable() {
+			@Override
+			public void run() {
+				int count;
+				synchronized (mPages) {
+					if (generation != mGeneration || startPosition >= mTotalCount) return;
+					count = Math.min(mPageSize, mTotalCount - startPosition);
+				}
+				loadPage(generation, page, startPosition, count);
+			}
+		}, delay);
+	}
+
+	private void notifyPageChanged(int page) {
+		int startPosition = page * mPageSize;
+		if (mAdapter != null && startPosition < mTotalCount)
+			mAdapter.notifyItemRangeChanged(startPosition, Math.min(mPageSize, mTotalCount - startPosition));
+	}
+
+	/*---------------*/
+	/* INNER CLASSES */
+	/*---------------*/
+
+	/**
+	 * @since 19/10/2016
+	 */
+	public interface PlaceholderFactory<T> {
+		/**
+		 * Creates the item displayed while the page of the position is loading. Each position
+		 * has its own instance, that is kept until the page is loaded or the placeholders of
+		 * the page are evicted. <b>Can be called from any thread.</b>
+		 * <p><b>Note:</b> All placeholders must have the same view type: when the Adapter
+		 * counts the view types, a single placeholder stands for all the positions whose
+		 * placeholders are not created.</p>
+		 *
+		 * @param position the global position of the placeholder
+		 * @return a new placeholder item, it will be disabled
+		 */
+		T createPlaceholder(int position);
+	}
+
+	/**
+	 * @since 19/10/2016
+	 */
+	public interface PageLoader<T> {
+		/**
+		 * Loads a page of items. <b>Called from a background thread.</b>
+		 *
+		 * @param page          the index of the page
+		 * @param startPosition the global position of the first item of the page
+		 * @param count         the number of items to load
+		 * @return the loaded items, null in case of error (the page will be retried)
+		 */
+		List<T> onLoadPage(int page, int startPosition, int count);
+	}
+
+}
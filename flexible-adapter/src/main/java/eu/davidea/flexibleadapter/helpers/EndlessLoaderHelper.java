@@ -0,0 +1,356 @@
+/*
+ * Copyright 2016 Davide Steduto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.davidea.flexibleadapter.helpers;
+
+import android.os.AsyncTask;
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.IntRange;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+import eu.davidea.flexibleadapter.FlexibleAdapter;
+import eu.davidea.flexibleadapter.items.IFlexible;
+
+/**
+ * Helper to load the pages of the Endless Scrolling, to use only with {@link FlexibleAdapter}.
+ * <p>Each page is identified by a token and it is loaded by the {@link PageLoader} on a
+ * background Executor. The helper keeps track of the requests in flight: overlapping requests
+ * for the same token are de-duplicated, different tokens can be loaded concurrently and the
+ * pages are always delivered to the Adapter in the order they were requested.</p>
+ * Failed loads are retried with exponential backoff on the same background thread, so the
+ * Future of a page completes only after the final attempt. All requests are cancelled when the
+ * Adapter is detached from the RecyclerView or when the filter changes.
+ * <p>Only the page requested by {@link #onLoadMore()}, the one for which the progress item is
+ * displayed, completes the loading in the Adapter: the prefetched pages are appended before
+ * the progress item. Likewise, only its failure is notified to the Adapter. A failed prefetch
+ * is just notified to the {@link PageLoader}: the pages requested after it are discarded, to
+ * keep the order.</p>
+ * <p>Usage:
+ * <pre>
+ * EndlessLoaderHelper helper = new EndlessLoaderHelper(adapter, pageLoader, firstPageToken);
+ * adapter.setEndlessScrollListener(helper, progressItem);</pre></p>
+ *
+ * @author Davide Steduto
+ * @since 19/10/2016 Created
+ */
+@SuppressWarnings({"unused", "Convert2Diamond"})
+public class EndlessLoaderHelper<T extends IFlexible> implements FlexibleAdapter.EndlessScrollListener {
+
+	private static final String TAG = EndlessLoaderHelper.class.getSimpleName();
+	public static final int DEFAULT_MAX_RETRIES = 3;
+	public static final long DEFAULT_RETRY_DELAY = 500L;
+
+	private FlexibleAdapter<T> mAdapter;
+	private PageLoader<T> mPageLoader;
+	private Executor mExecutor = AsyncTask.THREAD_POOL_EXECUTOR;
+	private Handler mHandler = new Handler(Looper.getMainLooper());
+	private int mMaxRetries = DEFAULT_MAX_RETRIES;
+	private long mRetryDelay = DEFAULT_RETRY_DELAY;
+
+	/**
+	 * Requests in flight or completed but not yet delivered, in request order.
+	 */
+	private final LinkedHashMap<Object, PageRequest> mRequests = new LinkedHashMap<Object, PageRequest>();
+	private Object mNextPageToken;
+	private boolean mEndReached = false;
+
+	/**
+	 * Token of the page for which the progress item is displayed, null if none.
+	 */
+	private Object mVisibleToken;
+
+	/**
+	 * @param adapter        the instance of {@code FlexibleAdapter}
+	 * @param pageLoader     the loader of the pages
+	 * @param firstPageToken the token of the first page to load at the end of the list
+	 */
+	public EndlessLoaderHelper(@NonNull FlexibleAdapter<T> adapter, @NonNull PageLoader<T> pageLoader,
+							   @NonNull Object firstPageToken) {
+		mAdapter = adapter;
+		mPageLoader = pageLoader;
+		mNextPageToken = firstPageToken;
+	}
+
+	/**
+	 * Sets the Executor on which the pages are loaded. The delays between the retries are
+	 * waited on the same thread.
+	 * <p>Default value is {@link AsyncTask#THREAD_POOL_EXECUTOR}.</p>
+	 *
+	 * @param executor the background Executor
+	 * @return this object, so it can be chained
+	 */
+	public EndlessLoaderHelper<T> setExecutor(@NonNull Executor executor) {
+		mExecutor = executor;
+		return this;
+	}
+
+	/**
+	 * Sets the retry policy in case of error: the delay is doubled at each attempt.
+	 * <p>Default values are {@link #DEFAULT_MAX_RETRIES} and {@link #DEFAULT_RETRY_DELAY}.</p>
+	 *
+	 * @param maxRetries the maximum number of retries, 0 to not retry
+	 * @param retryDelay the delay in milliseconds before the first retry
+	 * @return this object, so it can be chained
+	 */
+	public EndlessLoaderHelper<T> setRetryPolicy(@IntRange(from = 0) int maxRetries,
+												 @IntRange(from = 0) long retryDelay) {
+		mMaxRetries = Math.max(0, maxRetries);
+		mRetryDelay = Math.max(0L, retryDelay);
+		return this;
+	}
+
+	/**
+	 * @return the token of the next page to load, null if the end has been reached
+	 */
+	public Object getNextPageToken() {
+		return mEndReached ? null : mNextPageToken;
+	}
+
+	/**
+	 * @param pageToken the token of the page
+	 * @return true if the page is being loaded or waiting to be delivered, false otherwise
+	 */
+	public boolean isLoading(@NonNull Object pageToken) {
+		return mRequests.containsKey(pageToken);
+	}
+
+	/**
+	 * @return the number of the pages being loaded or waiting to be delivered
+	 */
+	public int getInFlightCount() {
+		return mRequests.size();
+	}
+
+	/**
+	 * Called by the Adapter when more items should be loaded: requests the next page.
+	 * <p>If the end has been reached, the progress item is removed.</p>
+	 */
+	@Override
+	public void onLoadMore() {
+		if (mEndReached) {
+			mAdapter.onLoadMoreComplete(null);
+		} else {
+			mVisibleToken = mNextPageToken;
+			loadPage(mNextPageToken);
+		}
+	}
+
+	/**
+	 * Requests the page identified by the token. If the same page is already in flight the
+	 * existing request is returned. This method can be used to prefetch pages concurrently
+	 * when the tokens are known in advance.
+	 * <p><b>Note:</b> Must be called from the main thread.</p>
+	 *
+	 * @param pageToken the token of the page
+	 * @return the cancellable Future of the page, completed after the last attempt
+	 */
+	public Future<List<T>> loadPage(@NonNull Object pageToken) {
+		PageRequest request = mRequests.get(pageToken);
+		if (request != null) {
+			if (FlexibleAdapter.DEBUG) Log.v(TAG, "De-duplicated request for page " + pageToken);
+			return request;
+		}
+		if (FlexibleAdapter.DEBUG) Log.v(TAG, "Loading page " + pageToken);
+		request = new PageRequest(pageToken, mMaxRetries, mRetryDelay);
+		mRequests.put(pageToken, request);
+		mExecutor.execute(request);
+		return request;
+	}
+
+	/**
+	 * Cancels all the requests in flight and all the pending retries. Pages not yet delivered
+	 * are discarded: the next {@link #onLoadMore()} will request again the next page.
+	 * <p>This method is automatically called by the Adapter when it is detached from the
+	 * RecyclerView and when the filter changes.</p>
+	 */
+	public void cancelAll() {
+		if (mRequests.isEmpty()) return;
+		if (FlexibleAdapter.DEBUG) Log.v(TAG, "Cancelling " + mRequests.size() + " requests");
+		mHandler.removeCallbacksAndMessages(null);
+		for (PageRequest request : new ArrayList<PageRequest>(mRequests.values())) {
+			request.cancel(true);
+		}
+		mRequests.clear();
+		mVisibleToken = null;
+	}
+
+	/**
+	 * Cancels all requests and restarts the loading from the provided token.
+	 *
+	 * @param firstPageToken the token of the first page to load
+	 */
+	public void reset(@NonNull Object firstPageToken) {
+		cancelAll();
+		mNextPageToken = firstPageToken;
+		mEndReached = false;
+	}
+
+	/*-----------------*/
+	/* PRIVATE METHODS */
+	/*-----------------*/
+
+	private void onRequestDone(PageRequest request) {
+		//Skip cancelled requests
+		if (mRequests.get(request.token) != request) return;
+		try {
+			List<T> items = request.get();
+			request.result = items != null ? items : new ArrayList<T>();
+			request.completed = true;
+			deliverCompletedPages();
+		} catch (ExecutionException e) {
+			onRequestFailed(request, e.getCause());
+		} catch (InterruptedException e) {
+			onRequestFailed(request, e);
+		} catch (CancellationException e) {
+			mRequests.remove(request.token);
+		}
+	}
+
+	private void onRequestFailed(PageRequest request, Throwable error) {
+		Log.e(TAG, "Error loading page " + request.token + ", giving up", error);
+		//The pages requested after the failed one cannot be delivered before it
+		boolean following = false;
+		Iterator<PageRequest> iterator = mRequests.values().iterator();
+		while (iterator.hasNext()) {
+			PageRequest next = iterator.next();
+			if (next == request) following = true;
+			else if (!following) continue;
+			else next.cancel(true);
+			iterator.remove();
+		}
+		mPageLoader.onLoadError(request.token, error);
+		if (request.token.equals(mVisibleToken)) {
+			//Hide the progress item, the page will be requested again at next drag
+			mVisibleToken = null;
+			mAdapter.onLoadMoreComplete(null);
+		}
+		deliverCompletedPages();
+	}
+
+	/**
+	 * Delivers the completed pages to the Adapter in request order.
+	 */
+	private void deliverCompletedPages() {
+		Iterator<PageRequest> iterator = mRequests.values().iterator();
+		while (iterator.hasNext()) {
+			PageRequest request = iterator.next();
+			if (!request.completed) break;
+			iterator.remove();
+			Object nextPageToken = mPageLoader.getNextPageToken(request.token, request.result);
+			if (nextPageToken == null) mEndReached = true;
+			else mNextPageToken = nextPageToken;
+			if (request.token.equals(mVisibleToken)) {
+				mVisibleToken = null;
+				mAdapter.onLoadMoreComplete(request.result);
+			} else {
+				//Prefetched page: the loading state belongs to the page still awaited
+				mAdapter.onLoadMorePrefetched(request.result);
+			}
+		}
+	}
+
+	/*---------------*/
+	/* INNER CLASSES */
+	/*---------------*/
+
+	/**
+	 * One Future for all the attempts: the backoff waits on the background thread and it is
+	 * interrupted by the cancellation.
+	 */
+	private class PageRequest extends FutureTask<List<T>> {
+		final Object token;
+		List<T> result;
+		boolean completed = false;
+
+		PageRequest(final Object token, final int maxRetries, final long retryDelay) {
+			super(new Callable<List<T>>() {
+				@Override
+				public List<T> call() throws Exception {
+					for (int attempt = 0; ; attempt++) {
+						try {
+							return mPageLoader.onLoadPage(token);
+						} catch (Exception e) {
+							if (attempt >= maxRetries) throw e;
+							long delay = retryDelay << attempt;
+							Log.w(TAG, "Error loading page " + token + ", retry in " + delay + "ms", e);
+							Thread.sleep(delay);
+						}
+					}
+				}
+			});
+			this.token = token;
+		}
+
+		@Override
+		protected void done() {
+			if (isCancelled()) return;
+			mHandler.post(new Runnable() {
+				@Override
+				public void run() {
+					onRequestDone(PageRequest.this);
+				}
+			});
+		}
+	}
+
+	/**
+	 * @since 19/10/2016
+	 */
+	public interface PageLoader<T> {
+		/**
+		 * Loads the page identified by the token. <b>Called from a background thread.</b>
+		 * <p>Throw any exception to signal an error: the load will be retried.</p>
+		 *
+		 * @param pageToken the token of the page
+		 * @return the items of the page, empty list or null if no more items
+		 * @throws Exception in case of error
+		 */
+		List<T> onLoadPage(Object pageToken) throws Exception;
+
+		/**
+		 * Provides the token of the page following the one just loaded.
+		 * <b>Called from the main thread.</b>
+		 *
+		 * @param pageToken the token of the page just loaded
+		 * @param items     the items of the page just loaded
+		 * @return the token of the next page, null if there are no more pages
+		 */
+		@Nullable
+		Object getNextPageToken(Object pageToken, List<T> items);
+
+		/**
+		 * Called from the main thread when the page could not be loaded after all retries.
+		 *
+		 * @param pageToken the token of the page
+		 * @param error     the last error
+		 */
+		void onLoadError(Object pageToken, Throwable error);
+	}
+
+}
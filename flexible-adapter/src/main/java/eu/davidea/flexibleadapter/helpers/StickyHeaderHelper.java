@@ -16,24 +16,34 @@
 package eu.davidea.flexibleadapter.helpers;
 
 import android.animation.Animator;
+import android.support.annotation.IntRange;
 import android.support.v7.widget.LinearLayoutManager;
 import android.support.v7.widget.OrientationHelper;
 import android.support.v7.widget.RecyclerView;
 import android.support.v7.widget.RecyclerView.OnScrollListener;
 import android.support.v7.widget.StaggeredGridLayoutManager;
 import android.util.Log;
+import android.util.SparseArray;
+import android.util.SparseIntArray;
 import android.view.View;
 import android.view.ViewGroup;
 import android.view.ViewParent;
 
+import java.util.List;
+
 import eu.davidea.flexibleadapter.FlexibleAdapter;
 import eu.davidea.flexibleadapter.FlexibleAdapter.OnStickyHeaderChangeListener;
+import eu.davidea.flexibleadapter.items.IExpandable;
+import eu.davidea.flexibleadapter.items.IFlexible;
 import eu.davidea.flexibleadapter.items.IHeader;
 import eu.davidea.viewholders.FlexibleViewHolder;
 
 /**
  * A sticky header helper, to use only with {@link FlexibleAdapter}.
  * <p>Header ViewHolders must be of type {@link FlexibleViewHolder}.</p>
+ * With {@link android.support.v7.widget.GridLayoutManager} and {@link StaggeredGridLayoutManager},
+ * headers must occupy the full span (SpanSizeLookup or {@code LayoutParams.setFullSpan(true)}):
+ * the next section boundary is the row of the next header.
  *
  * @since 25/03/2016 Created
  */
@@ -47,7 +57,25 @@ public class StickyHeaderHelper extends OnScrollListener {
 	private FlexibleViewHolder mStickyHeaderViewHolder;
 	private OnStickyHeaderChangeListener mStickyHeaderChangeListener;
 	private int mHeaderPosition = RecyclerView.NO_POSITION;
-
+	//Off-screen header ViewHolders, reused per view type, with the last measure specs
+	private SparseArray<FlexibleViewHolder> mHeaderViewHolders = new SparseArray<FlexibleViewHolder>();
+	private SparseIntArray mWidthSpecs = new SparseIntArray(), mHeightSpecs = new SparseIntArray();
+	//Section offset table: sorted positions of the headers, rebuilt after the data changes
+	private int[] mSectionPositions = new int[16];
+	private int mSectionCount = -1;//-1 = invalid
+	private int mLastPosition = RecyclerView.NO_POSITION, mLastSection = -1;
+	private final RecyclerView.AdapterDataObserver mSectionObserver = new SectionObserver();
+	private boolean isObserving = false;
+	//View of the next header, cached among frames while it stays laid out
+	private View mNextHeaderView;
+	private int mNextHeaderPosition = RecyclerView.NO_POSITION;
+	//Stacked headers: expanded parents of the first visible item, below the section header
+	private int mStackedLevels = 1, mStackSize = 0, mStackHeight = 0,
+			mStackFirstPosition = RecyclerView.NO_POSITION;
+	private FlexibleViewHolder[] mStackViewHolders = new FlexibleViewHolder[0];
+	private int[] mStackPositions = new int[0], mAncestors = new int[8];
+	//Parent position and end of the visible subtree of each position, built with the sections
+	private int[] mParents = new int[0], mSubtreeEnds = new int[0];
 
 	public StickyHeaderHelper(FlexibleAdapter adapter,
 							  OnStickyHeaderChangeListener stickyHeaderChangeListener) {
@@ -55,6 +83,35 @@ public class StickyHeaderHelper extends OnScrollListener {
 		mStickyHeaderChangeListener = stickyHeaderChangeListener;
 	}
 
+	/**
+	 * Stacks, below the sticky section header, the expanded parents of the first visible item,
+	 * one per expansion level: ex. the header of a category, then its expanded sub-category.
+	 * Each level is pushed up by the first item after its sub items. The ViewHolders of each
+	 * level are reused among sections as long as the view type of the level doesn't change.
+	 * <p>Supported with vertical orientation only. Default value is 1 (only the section header).</p>
+	 *
+	 * @param levels the maximum number of stacked headers, section header included
+	 */
+	public void setStackedLevels(@IntRange(from = 1) int levels) {
+		levels = Math.max(1, levels);
+		if (levels == mStackedLevels) return;
+		clearStack();
+		mStackedLevels = levels;
+		mStackViewHolders = new FlexibleViewHolder[levels - 1];
+		mStackPositions = new int[levels - 1];
+		invalidateSections();
+		if (mRecyclerView != null) updateOrClearHeader(false);
+	}
+
+	public int getStackedLevels() {
+		return mStackedLevels;
+	}
+
+	/**
+	 * Not registered as scroll listener: the Adapter calls {@link #updateOrClearHeader(boolean)}
+	 * after having refreshed the visible range of the frame. A listener registered after the
+	 * Adapter's one would be called first, reading the range of the previous frame.
+	 */
 	@Override
 	public void onScrolled(RecyclerView recyclerView, int dx, int dy) {
 		updateOrClearHeader(false);
@@ -66,12 +123,15 @@ public class StickyHeaderHelper extends OnScrollListener {
 
 	public void attachToRecyclerView(RecyclerView parent) {
 		if (mRecyclerView != null) {
-			mRecyclerView.removeOnScrollListener(this);
 			clearHeader();
 		}
 		mRecyclerView = parent;
 		if (mRecyclerView != null) {
-			mRecyclerView.addOnScrollListener(this);
+			if (!isObserving) {
+				mAdapter.registerAdapterDataObserver(mSectionObserver);
+				isObserving = true;
+			}
+			invalidateSections();
 			mRecyclerView.post(new Runnable() {
 				@Override
 				public void run() {
@@ -83,8 +143,18 @@ public class StickyHeaderHelper extends OnScrollListener {
 
 	public void detachFromRecyclerView(RecyclerView parent) {
 		if (mRecyclerView == parent) {
-			mRecyclerView.removeOnScrollListener(this);
 			mRecyclerView = null;
+			mHeaderViewHolders.clear();
+			mWidthSpecs.clear();
+			mHeightSpecs.clear();
+			clearStack();
+			for (int i = 0; i < mStackViewHolders.length; i++) {
+				mStackViewHolders[i] = null;
+			}
+			if (isObserving) {
+				mAdapter.unregisterAdapterDataObserver(mSectionObserver);
+				isObserving = false;
+			}
 			mStickyHolderLayout.animate().setListener(new Animator.AnimatorListener() {
 				@Override
 				public void onAnimationStart(Animator animation) {
@@ -132,6 +202,9 @@ public class StickyHeaderHelper extends OnScrollListener {
 			clearHeader();
 			return;
 		}
+		//The SectionObserver, registered after the Adapter observer, is notified first (the
+		//observers are notified in reverse order): this covers the calls from the outside
+		if (updateHeaderContent) invalidateSections();
 		int firstHeaderPosition = getHeaderPosition(RecyclerView.NO_POSITION);
 		if (firstHeaderPosition >= 0 && firstHeaderPosition < mAdapter.getItemCount()) {
 			updateHeader(firstHeaderPosition, updateHeaderContent);
@@ -151,6 +224,9 @@ public class StickyHeaderHelper extends OnScrollListener {
 			mAdapter.onBindViewHolder(mStickyHeaderViewHolder, mHeaderPosition);
 			ensureHeaderParent();
 		}
+		if (mStackedLevels > 1) {
+			updateStack(updateHeaderContent);
+		}
 		translateHeader();
 	}
 
@@ -159,29 +235,22 @@ public class StickyHeaderHelper extends OnScrollListener {
 
 		int headerOffsetX = 0, headerOffsetY = 0;
 
-		//Search for the position where the next header item is found and take the new offset
-        for (int i = 0; i < mRecyclerView.getChildCount(); i++) {
-            final View nextChild = mRecyclerView.getChildAt(i);
-			if (nextChild != null) {
-				int adapterPos = mRecyclerView.getChildAdapterPosition(nextChild);
-				int nextHeaderPosition = getHeaderPosition(adapterPos);
-				if (mHeaderPosition != nextHeaderPosition) {
-					if (getOrientation(mRecyclerView) == OrientationHelper.HORIZONTAL) {
-						if (nextChild.getLeft() > 0) {
-							int headerWidth = mStickyHolderLayout.getMeasuredWidth();
-							headerOffsetX = Math.min(nextChild.getLeft() - headerWidth, 0);
-							if (headerOffsetX < 0) break;
-						}
-					} else {
-						if (nextChild.getTop() > 0) {
-							int headerHeight = mStickyHolderLayout.getMeasuredHeight();
-							headerOffsetY = Math.min(nextChild.getTop() - headerHeight, 0);
-							if (headerOffsetY < 0) break;
-						}
-					}
+		//The next section starts with its header: take the new offset from its View
+		final View nextChild = getNextHeaderView();
+		if (nextChild != null) {
+			if (getOrientation(mRecyclerView) == OrientationHelper.HORIZONTAL) {
+				if (nextChild.getLeft() > 0) {
+					int headerWidth = mStickyHolderLayout.getMeasuredWidth();
+					headerOffsetX = Math.min(nextChild.getLeft() - headerWidth, 0);
+				}
+			} else {
+				if (nextChild.getTop() > 0) {
+					int headerHeight = mStickyHolderLayout.getMeasuredHeight() - mStackHeight;
+					headerOffsetY = Math.min(nextChild.getTop() - headerHeight, 0);
 				}
 			}
 		}
+		if (mStackSize > 0) translateStack(headerOffsetY);
 		//Fix to remove unnecessary shadow
 		//ViewCompat.setElevation(mStickyHeaderViewHolder.getContentView(), 0f);
 		//Apply translation
@@ -210,9 +279,119 @@ public class StickyHeaderHelper extends OnScrollListener {
 		removeViewFromParent(view);
 		mStickyHolderLayout.setClipToPadding(false);
 		mStickyHolderLayout.addView(view);
+		//The section header changed: the stack is rebuilt on top of it
+		mStackFirstPosition = RecyclerView.NO_POSITION;
+	}
+
+	/**
+	 * Rebuilds the stack of the expanded parents, only when the first visible item changes.
+	 */
+	private void updateStack(boolean updateContent) {
+		int firstPosition = mAdapter.getFirstVisiblePosition();
+		if (firstPosition == mStackFirstPosition && !updateContent) return;
+		mStackFirstPosition = firstPosition;
+		ensureSections();
+		int size = 0;
+		if (firstPosition >= 0 && firstPosition < mSubtreeEnds.length &&
+				getOrientation(mRecyclerView) == OrientationHelper.VERTICAL) {
+			//Collect the expanded parents from the first visible item up to the section header
+			int count = 0;
+			int position = mSubtreeEnds[firstPosition] > firstPosition + 1 ? firstPosition : mParents[firstPosition];
+			while (position > mHeaderPosition) {
+				if (count == mAncestors.length) {
+					int[] ancestors = new int[count * 2];
+					System.arraycopy(mAncestors, 0, ancestors, 0, count);
+					mAncestors = ancestors;
+				}
+				mAncestors[count++] = position;
+				position = mParents[position];
+			}
+			//Keep the outer levels, the first below the section header is at the end
+			size = Math.min(count, mStackedLevels - 1);
+			for (int level = 0; level < size; level++) {
+				bindStackLevel(level, mAncestors[count - 1 - level], updateContent);
+			}
+		}
+		//Hide the deeper levels, ViewHolders are kept for the next sections
+		for (int level = size; level < mStackSize; level++) {
+			removeViewFromParent(mStackViewHolders[level].getContentView());
+		}
+		mStackSize = size;
+		//Deeper levels are drawn below the outer levels, when pushed up
+		int height = 0, width = mStickyHeaderViewHolder != null ?
+				mStickyHeaderViewHolder.getContentView().getMeasuredWidth() : 0;
+		for (int level = 0; level < size; level++) {
+			View view = mStackViewHolders[level].getContentView();
+			if (mStickyHolderLayout.indexOfChild(view) != size - 1 - level) {
+				removeViewFromParent(view);
+				mStickyHolderLayout.addView(view, size - 1 - level);
+			}
+			height += view.getMeasuredHeight();
+			width = Math.max(width, view.getMeasuredWidth());
+		}
+		if (height != mStackHeight || size > 0) {
+			ViewGroup.LayoutParams params = mStickyHolderLayout.getLayoutParams();
+			params.width = width;
+			params.height = height + (mStickyHeaderViewHolder != null ?
+					mStickyHeaderViewHolder.getContentView().getMeasuredHeight() : 0);
+			mStickyHolderLayout.requestLayout();
+		}
+		mStackHeight = height;
+	}
+
+	@SuppressWarnings("unchecked")
+	private void bindStackLevel(int level, int position, boolean updateContent) {
+		if (mStackPositions[level] == position && level < mStackSize && !updateContent) return;
+		int viewType = mAdapter.getItemViewType(position);
+		FlexibleViewHolder holder = mStackViewHolders[level];
+		if (holder == null || holder.getItemViewType() != viewType) {
+			if (holder != null) removeViewFromParent(holder.getContentView());
+			holder = (FlexibleViewHolder) mAdapter.createViewHolder(mRecyclerView, viewType);
+			mStackViewHolders[level] = holder;
+			if (FlexibleAdapter.DEBUG) Log.v(TAG, "Created stacked header ViewHolder for level=" + (level + 1));
+		}
+		mAdapter.bindViewHolder(holder, position);
+		holder.setBackupPosition(position);
+		mStackPositions[level] = position;
+		final View headerView = holder.getContentView();
+		headerView.measure(getHeaderMeasureSpec(headerView, true), getHeaderMeasureSpec(headerView, false));
+		headerView.layout(0, 0, headerView.getMeasuredWidth(), headerView.getMeasuredHeight());
+	}
+
+	/**
+	 * Computes the push-up offsets of all levels in one pass: each level is pushed up by the
+	 * first item after its sub items and cannot go lower than its outer level.
+	 *
+	 * @param headerOffsetY the offset of the section header, already applied to the holder layout
+	 */
+	private void translateStack(int headerOffsetY) {
+		int top = mStickyHolderLayout.getMeasuredHeight() - mStackHeight;
+		int offset = headerOffsetY;
+		for (int level = 0; level < mStackSize; level++) {
+			View view = mStackViewHolders[level].getContentView();
+			int height = view.getMeasuredHeight();
+			View nextChild = getChildViewOf(mSubtreeEnds[mStackPositions[level]]);
+			if (nextChild != null && nextChild.getTop() > 0) {
+				offset = Math.min(offset, nextChild.getTop() - (top + height));
+			}
+			view.setTranslationY(top + offset - headerOffsetY);
+			top += height;
+		}
+	}
+
+	private void clearStack() {
+		for (int level = 0; level < mStackSize; level++) {
+			View view = mStackViewHolders[level].getContentView();
+			removeViewFromParent(view);
+			view.setTranslationY(0);
+		}
+		mStackSize = 0;
+		mStackHeight = 0;
+		mStackFirstPosition = RecyclerView.NO_POSITION;
 	}
 
 	public void clearHeader() {
+		clearStack();
 		if (mStickyHeaderViewHolder != null) {
 			if (FlexibleAdapter.DEBUG) Log.v(TAG, "clearHeader");
 			resetHeader(mStickyHeaderViewHolder);
@@ -226,20 +405,145 @@ public class StickyHeaderHelper extends OnScrollListener {
 	@SuppressWarnings("unchecked")
 	private int getHeaderPosition(int adapterPosHere) {
 		if (adapterPosHere == RecyclerView.NO_POSITION) {
-			View firstChild = mRecyclerView.getChildAt(0);
-			adapterPosHere = mRecyclerView.getChildAdapterPosition(firstChild);
+			//Refreshed by the scroll listener of the Adapter just before calling this helper
+			adapterPosHere = mAdapter.getFirstVisiblePosition();
 		}
-		IHeader header = mAdapter.getSectionHeader(adapterPosHere);
+		int section = getSectionOf(adapterPosHere);
+		if (section < 0) return RecyclerView.NO_POSITION;
+		int headerPosition = mSectionPositions[section];
+		IFlexible header = mAdapter.getItem(headerPosition);
 		//Header cannot be sticky if it's also an Expandable in collapsed status, RV will raise an exception
 		if (header == null || mAdapter.isExpandable(header) && !mAdapter.isExpanded(header)) {
 			return RecyclerView.NO_POSITION;
 		}
-		return mAdapter.getGlobalPositionOf(header);
+		return headerPosition;
+	}
+
+	/**
+	 * @return the View of the header of the section following the first visible item,
+	 * null if not laid out
+	 */
+	private View getNextHeaderView() {
+		int firstPosition = mAdapter.getFirstVisiblePosition();
+		int section = getSectionOf(firstPosition);
+		if (firstPosition == RecyclerView.NO_POSITION || section + 1 >= mSectionCount) return null;
+		int nextHeaderPosition = mSectionPositions[section + 1];
+		//Same header View of the previous frame
+		if (nextHeaderPosition == mNextHeaderPosition && mNextHeaderView != null &&
+				mNextHeaderView.getParent() == mRecyclerView &&
+				mRecyclerView.getChildAdapterPosition(mNextHeaderView) == nextHeaderPosition) {
+			return mNextHeaderView;
+		}
+		mNextHeaderPosition = nextHeaderPosition;
+		mNextHeaderView = getChildViewOf(nextHeaderPosition);
+		return mNextHeaderView;
 	}
 
 	/**
-	 * Gets the header view for the associated header position. If it doesn't exist yet, it will
-	 * be created, measured, and laid out.
+	 * @return the laid out View of the position, null if not laid out
+	 */
+	private View getChildViewOf(int position) {
+		int firstPosition = mAdapter.getFirstVisiblePosition();
+		//Linear and Grid children are laid out in adapter order: the View is found in one step
+		View child = mRecyclerView.getChildAt(position - firstPosition);
+		if (child == null || mRecyclerView.getChildAdapterPosition(child) != position) {
+			//Staggered children can be in any order
+			RecyclerView.ViewHolder holder = mRecyclerView.findViewHolderForAdapterPosition(position);
+			child = holder != null ? holder.itemView : null;
+		}
+		return child;
+	}
+
+	/**
+	 * Binary search in the section offset table, the last lookup is cached since it's
+	 * repeated at each frame until the first visible item changes.
+	 *
+	 * @param position the adapter position
+	 * @return the index of the section containing the position, -1 if before any header
+	 */
+	private int getSectionOf(int position) {
+		ensureSections();
+		if (position == mLastPosition) return mLastSection;
+		int low = 0, high = mSectionCount - 1, section = -1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			if (mSectionPositions[mid] <= position) {
+				section = mid;
+				low = mid + 1;
+			} else {
+				high = mid - 1;
+			}
+		}
+		mLastPosition = position;
+		mLastSection = section;
+		return section;
+	}
+
+	@SuppressWarnings("unchecked")
+	private void ensureSections() {
+		if (mSectionCount >= 0) return;
+		mSectionCount = 0;
+		if (!mAdapter.areHeadersShown()) return;
+		int itemCount = mAdapter.getItemCount();
+		for (int position = 0; position < itemCount; position++) {
+			//Peek: in paged mode the scan must not load the pages
+			if (!mAdapter.isHeader(mAdapter.peekItem(position))) continue;
+			if (mSectionCount == mSectionPositions.length) {
+				int[] positions = new int[mSectionCount * 2];
+				System.arraycopy(mSectionPositions, 0, positions, 0, mSectionCount);
+				mSectionPositions = positions;
+			}
+			mSectionPositions[mSectionCount++] = position;
+		}
+		if (mStackedLevels > 1) {
+			if (mParents.length < itemCount) {
+				mParents = new int[itemCount];
+				mSubtreeEnds = new int[itemCount];
+			}
+			for (int position = 0; position < itemCount; ) {
+				position = fillParents(position, RecyclerView.NO_POSITION, itemCount);
+			}
+		}
+		if (FlexibleAdapter.DEBUG) Log.v(TAG, "Section offset table rebuilt, sections=" + mSectionCount);
+	}
+
+	/**
+	 * Assigns the parent to the position and, recursively, to its visible sub items.
+	 *
+	 * @return the position after the visible subtree
+	 */
+	@SuppressWarnings("unchecked")
+	private int fillParents(int position, int parent, int itemCount) {
+		mParents[position] = parent;
+		int next = position + 1;
+		IFlexible item = mAdapter.peekItem(position);
+		if (mAdapter.isExpandable(item) && ((IExpandable) item).isExpanded()) {
+			List<IFlexible> subItems = ((IExpandable) item).getSubItems();
+			if (subItems != null) {
+				for (IFlexible subItem : subItems) {
+					//Hidden sub items are not in the list
+					if (next < itemCount && mAdapter.peekItem(next) == subItem)
+						next = fillParents(next, position, itemCount);
+				}
+			}
+		}
+		mSubtreeEnds[position] = next;
+		return next;
+	}
+
+	private void invalidateSections() {
+		mStackFirstPosition = RecyclerView.NO_POSITION;
+		mNextHeaderView = null;
+		mNextHeaderPosition = RecyclerView.NO_POSITION;
+		mSectionCount = -1;
+		mLastPosition = RecyclerView.NO_POSITION;
+		mLastSection = -1;
+	}
+
+	/**
+	 * Gets the header view for the associated header position. If it doesn't exist yet, the
+	 * cached ViewHolder of the same view type is bound, or a new one is created, then it is
+	 * measured and laid out only if the size might be changed.
 	 *
 	 * @param position the adapter position to get the header view
 	 * @return ViewHolder of type FlexibleViewHolder of the associated header position
@@ -249,37 +553,59 @@ public class StickyHeaderHelper extends OnScrollListener {
 		//Find existing ViewHolder
 		FlexibleViewHolder holder = (FlexibleViewHolder) mRecyclerView.findViewHolderForAdapterPosition(position);
 		if (holder == null) {
-			//Create and binds a new ViewHolder
-			holder = (FlexibleViewHolder) mAdapter.createViewHolder(mRecyclerView, mAdapter.getItemViewType(position));
+			//Reuse or create, then bind the ViewHolder
+			int viewType = mAdapter.getItemViewType(position);
+			holder = mHeaderViewHolders.get(viewType);
+			if (holder == null) {
+				holder = (FlexibleViewHolder) mAdapter.createViewHolder(mRecyclerView, viewType);
+				mHeaderViewHolders.put(viewType, holder);
+				mWidthSpecs.delete(viewType);
+				mHeightSpecs.delete(viewType);
+				if (FlexibleAdapter.DEBUG) Log.v(TAG, "Created sticky header ViewHolder for viewType=" + viewType);
+			}
 			mAdapter.bindViewHolder(holder, position);
 
 			//Restore the Adapter position
 			holder.setBackupPosition(position);
 
-			//Calculate width and height
-			int widthSpec;
-			int heightSpec;
-			if (getOrientation(mRecyclerView) == OrientationHelper.VERTICAL) {
-				widthSpec = View.MeasureSpec.makeMeasureSpec(mRecyclerView.getWidth(), View.MeasureSpec.EXACTLY);
-				heightSpec = View.MeasureSpec.makeMeasureSpec(mRecyclerView.getHeight(), View.MeasureSpec.UNSPECIFIED);
-			} else {
-				widthSpec = View.MeasureSpec.makeMeasureSpec(mRecyclerView.getWidth(), View.MeasureSpec.UNSPECIFIED);
-				heightSpec = View.MeasureSpec.makeMeasureSpec(mRecyclerView.getHeight(), View.MeasureSpec.EXACTLY);
-			}
-
 			//Measure and Layout the stickyView
 			final View headerView = holder.getContentView();
-			int childWidth = ViewGroup.getChildMeasureSpec(widthSpec,
+			int childWidth = getHeaderMeasureSpec(headerView, true);
+			int childHeight = getHeaderMeasureSpec(headerView, false);
+
+			//Same specs and content that didn't request a layout: previous size is still valid
+			if (headerView.isLayoutRequested() ||
+					mWidthSpecs.get(viewType, -1) != childWidth || mHeightSpecs.get(viewType, -1) != childHeight) {
+				headerView.measure(childWidth, childHeight);
+				headerView.layout(0, 0, headerView.getMeasuredWidth(), headerView.getMeasuredHeight());
+				mWidthSpecs.put(viewType, childWidth);
+				mHeightSpecs.put(viewType, childHeight);
+			}
+		}
+		return holder;
+	}
+
+	/**
+	 * Calculates width or height spec of a header View.
+	 *
+	 * @param headerView the View to measure
+	 * @param width      true for the width spec, false for the height spec
+	 * @return the child measure spec
+	 */
+	private int getHeaderMeasureSpec(View headerView, boolean width) {
+		boolean vertical = getOrientation(mRecyclerView) == OrientationHelper.VERTICAL;
+		if (width) {
+			int widthSpec = View.MeasureSpec.makeMeasureSpec(mRecyclerView.getWidth(),
+					vertical ? View.MeasureSpec.EXACTLY : View.MeasureSpec.UNSPECIFIED);
+			return ViewGroup.getChildMeasureSpec(widthSpec,
 					mRecyclerView.getPaddingLeft() + mRecyclerView.getPaddingRight(),
 					headerView.getLayoutParams().width);
-			int childHeight = ViewGroup.getChildMeasureSpec(heightSpec,
-					mRecyclerView.getPaddingTop() + mRecyclerView.getPaddingBottom(),
-					headerView.getLayoutParams().height);
-
-			headerView.measure(childWidth, childHeight);
-			headerView.layout(0, 0, headerView.getMeasuredWidth(), headerView.getMeasuredHeight());
 		}
-		return holder;
+		int heightSpec = View.MeasureSpec.makeMeasureSpec(mRecyclerView.getHeight(),
+				vertical ? View.MeasureSpec.UNSPECIFIED : View.MeasureSpec.EXACTLY);
+		return ViewGroup.getChildMeasureSpec(heightSpec,
+				mRecyclerView.getPaddingTop() + mRecyclerView.getPaddingBottom(),
+				headerView.getLayoutParams().height);
 	}
 
 	private void resetHeader(FlexibleViewHolder header) {
@@ -300,12 +626,44 @@ public class StickyHeaderHelper extends OnScrollListener {
 		}
 	}
 
+	/**
+	 * Invalidates the section offset table at each change of the data set.
+	 */
+	private class SectionObserver extends RecyclerView.AdapterDataObserver {
+		@Override
+		public void onChanged() {
+			invalidateSections();
+		}
+
+		@Override
+		public void onItemRangeChanged(int positionStart, int itemCount) {
+			invalidateSections();
+		}
+
+		@Override
+		public void onItemRangeInserted(int positionStart, int itemCount) {
+			invalidateSections();
+		}
+
+		@Override
+		public void onItemRangeRemoved(int positionStart, int itemCount) {
+			invalidateSections();
+		}
+
+		@Override
+		public void onItemRangeMoved(int fromPosition, int toPosition, int itemCount) {
+			invalidateSections();
+		}
+	}
+
 	private static int getOrientation(RecyclerView recyclerView) {
 		RecyclerView.LayoutManager layoutManager = recyclerView.getLayoutManager();
 		if (layoutManager instanceof LinearLayoutManager) {
 			return ((LinearLayoutManager) layoutManager).getOrientation();
 		} else if (layoutManager instanceof StaggeredGridLayoutManager) {
 			return ((StaggeredGridLayoutManager) layoutManager).getOrientation();
+		} else if (layoutManager != null && layoutManager.canScrollVertically()) {
+			return OrientationHelper.VERTICAL;
 		}
 		return OrientationHelper.HORIZONTAL;
 	}
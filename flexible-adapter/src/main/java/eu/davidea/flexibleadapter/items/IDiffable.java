@@ -0,0 +1,56 @@
+/*
+ * Copyright 2016 Davide Steduto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.davidea.flexibleadapter.items;
+
+import android.support.annotation.Nullable;
+
+/**
+ * When the same item is re-fetched as a new instance, an item can implement this interface to
+ * compare itself with its old version: the Adapter will then replace the old instance and
+ * rebind only the changed fields, instead of rebinding the whole ItemView.
+ * <p>The two versions are first matched with {@code equals()}, so the equality must be based
+ * on the identity of the item (ex. its id) and not on its content.</p>
+ * Used by {@link eu.davidea.flexibleadapter.FlexibleAdapter#animateTo(java.util.List)},
+ * therefore by the filter and by the animated {@code updateDataSet()}, and by
+ * {@code updateItem()} when no payload is provided.
+ *
+ * @author Davide Steduto
+ * @see IFlexible
+ * @see IFilterable
+ * @since 19/10/2016 Created
+ */
+public interface IDiffable<T> {
+
+	/**
+	 * Checks if the displayed content of this item is the same of the old version.
+	 *
+	 * @param oldItem the old version of this item
+	 * @return true if nothing visible has changed and no rebind is needed, false otherwise
+	 */
+	boolean isContentSameAs(T oldItem);
+
+	/**
+	 * Computes the payload describing the changed fields, called only when the content has
+	 * changed. The payload will be delivered to
+	 * {@link IFlexible#bindViewHolder(eu.davidea.flexibleadapter.FlexibleAdapter, android.support.v7.widget.RecyclerView.ViewHolder, int, java.util.List)}.
+	 *
+	 * @param oldItem the old version of this item
+	 * @return the payload of the changed fields, null to rebind all fields of this item
+	 */
+	@Nullable
+	Object getChangePayload(T oldItem);
+
+}
@@ -32,6 +32,8 @@ public interface IFilterable {
 	/**
 	 * Checks and performs the filter on this item, you can apply the logic and the filter on
 	 * every fields your use case foreseen.
+	 * <p>Use {@link eu.davidea.flexibleadapter.FlexibleAdapter#getSearchMatcher()} to match
+	 * the fields ignoring case and accents, with the same logic used for the highlighting.</p>
 	 *
 	 * @param constraint the search text typed by the user
 	 * @return true if this item should be collected by the Adapter for the filtered list, false otherwise
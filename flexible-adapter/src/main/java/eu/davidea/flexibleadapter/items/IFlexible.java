@@ -29,6 +29,7 @@ import eu.davidea.flexibleadapter.FlexibleAdapter;
  * <p>Implements this interface or use {@link AbstractFlexibleItem}.</p>
  *
  * @author Davide Steduto
+ * @see IDiffable
  * @see IExpandable
  * @see IFilterable
  * @see IHeader
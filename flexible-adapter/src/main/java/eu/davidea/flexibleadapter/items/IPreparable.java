@@ -0,0 +1,62 @@
+/*
+ * Copyright 2016 Davide Steduto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.davidea.flexibleadapter.items;
+
+import eu.davidea.flexibleadapter.FlexibleAdapter;
+
+/**
+ * Two-phase binding: an item can implement this interface to precompute, off the main thread,
+ * the expensive parts of its presentation (text layouts, highlighted spans, formatted dates),
+ * so that {@link IFlexible#bindViewHolder(FlexibleAdapter, android.support.v7.widget.RecyclerView.ViewHolder, int, java.util.List)}
+ * only applies the precomputed results.
+ * <p>When a prepare Executor is set, the Adapter prepares the items entering the prefetch
+ * window in background. An item not prepared yet when bound, is prepared on the main thread
+ * just before the binding.</p>
+ * The results must be cached by the item itself, together with the search text they were
+ * computed for: a change of the search text so invalidates them without any notification.
+ * Since the main thread does not wait a running background preparation, the same item can be
+ * prepared concurrently: publish the results atomically, ex. as an immutable holder assigned
+ * to a {@code volatile} field.
+ *
+ * @author Davide Steduto
+ * @see IFlexible
+ * @see FlexibleAdapter#setPrepareExecutor(java.util.concurrent.Executor)
+ * @since 19/10/2016 Created
+ */
+public interface IPreparable {
+
+	/**
+	 * Precomputes the presentation of this item. <b>Called from a background thread</b> or
+	 * from the main thread.
+	 *
+	 * @param adapter    the Adapter instance
+	 * @param searchText the search text to prepare the highlights for, empty if no filter
+	 */
+	void prepare(FlexibleAdapter adapter, String searchText);
+
+	/**
+	 * @param searchText the current search text of the Adapter
+	 * @return true if the precomputed results are available for the search text, false otherwise
+	 */
+	boolean isPreparedFor(String searchText);
+
+	/**
+	 * Drops the precomputed results, they will be computed again before the next binding.
+	 * Called when the item is updated.
+	 */
+	void invalidatePrepared();
+
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright 2016 Davide Steduto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.davidea.flexibleadapter.items;
+
+/**
+ * In order to be ranked by relevance with
+ * {@link eu.davidea.flexibleadapter.FlexibleAdapter#filterItemsRanked(java.util.List, int)},
+ * an item must provide the fields on which the search is performed.
+ *
+ * @author Davide Steduto
+ * @see IFilterable
+ * @see IFlexible
+ * @since 19/10/2016 Created
+ */
+public interface ISearchable {
+
+	/**
+	 * Provides the fields to search, in order of importance: with the same score, a match on
+	 * the first field ranks higher. <b>Called from a background thread</b>, it's suggested to
+	 * not create a new array at each call.
+	 *
+	 * @return the searchable fields, elements can be null
+	 */
+	CharSequence[] getSearchableFields();
+
+}
@@ -0,0 +1,302 @@
+/*
+ * Copyright 2016 Davide Steduto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.davidea.flexibleadapter.utils;
+
+import android.support.annotation.IntDef;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Matcher of a search query, shared between the filter and the highlighting of the items.
+ * <p>The query is split in tokens separated by white spaces: a text matches if it contains
+ * all the tokens, in any order, or, in {@link #MATCH_PREFIX} mode, if all the tokens match the
+ * beginning of a word. Case and accents are ignored ("Cafe" matches "caf&eacute;") and the Turkish
+ * dotted/dotless i are folded according to the Locale.</p>
+ * The query is folded once in the constructor, while each character of the text is folded
+ * on the fly through a lookup table: the matching never allocates and the match ranges are
+ * the same positions of the original text, ready for the highlighting.
+ * <p>The instance is immutable and can be used by multiple threads.</p>
+ *
+ * @author Davide Steduto
+ * @see Utils#getHighlightedText(String, SearchMatcher, int)
+ * @since 19/10/2016 Created
+ */
+@SuppressWarnings({"unused", "Convert2Diamond"})
+public final class SearchMatcher {
+
+	/**
+	 * The tokens can be found anywhere in the text.
+	 */
+	public static final int MATCH_CONTAINS = 0;
+	/**
+	 * The tokens must be found at the beginning of a word.
+	 */
+	public static final int MATCH_PREFIX = 1;
+
+	/* Scores of a token */
+	private static final int SCORE_PREFIX = 100, SCORE_WORD = 70, SCORE_CONTAINS = 40, SCORE_FUZZY = 20;
+
+	@IntDef({MATCH_CONTAINS, MATCH_PREFIX})
+	@Retention(RetentionPolicy.SOURCE)
+	public @interface MatchMode {
+	}
+
+	//Lowercase base letter of each char of Latin-1 and Latin Extended-A/B
+	private static final char[] FOLD_TABLE = new char[0x250];
+
+	static {
+		for (char c = 0; c < FOLD_TABLE.length; c++) {
+			String decomposed = Normalizer.normalize(String.valueOf(c), Normalizer.Form.NFD);
+			FOLD_TABLE[c] = Character.toLowerCase(decomposed.charAt(0));
+		}
+	}
+
+	private final String mQuery;
+	private final Locale mLocale;
+	private final int mMode;
+	private final boolean mTurkish;
+	private final char[][] mTokens;
+
+	/**
+	 * Matcher in {@link #MATCH_CONTAINS} mode, with the default Locale.
+	 *
+	 * @param query the search query, can be null or empty
+	 */
+	public SearchMatcher(@Nullable String query) {
+		this(query, Locale.getDefault(), MATCH_CONTAINS);
+	}
+
+	/**
+	 * @param query  the search query, can be null or empty
+	 * @param locale the Locale of the texts
+	 * @param mode   one of {@link #MATCH_CONTAINS}, {@link #MATCH_PREFIX}
+	 */
+	public SearchMatcher(@Nullable String query, @NonNull Locale locale, @MatchMode int mode) {
+		mQuery = query != null ? query : "";
+		mLocale = locale;
+		mMode = mode;
+		String language = locale.getLanguage();
+		mTurkish = "tr".equals(language) || "az".equals(language);
+		//Fold and split the query once
+		List<char[]> tokens = new ArrayList<char[]>();
+		int length = mQuery.length(), start = -1;
+		for (int i = 0; i <= length; i++) {
+			boolean separator = i == length || Character.isWhitespace(mQuery.charAt(i));
+			if (!separator && start < 0) {
+				start = i;
+			} else if (separator && start >= 0) {
+				char[] token = new char[i - start];
+				for (int k = 0; k < token.length; k++) {
+					token[k] = fold(mQuery.charAt(start + k));
+				}
+				tokens.add(token);
+				start = -1;
+			}
+		}
+		mTokens = tokens.toArray(new char[tokens.size()][]);
+	}
+
+	public String getQuery() {
+		return mQuery;
+	}
+
+	public Locale getLocale() {
+		return mLocale;
+	}
+
+	public int getMode() {
+		return mMode;
+	}
+
+	/**
+	 * @return true if the query has no tokens, in this case every text matches
+	 */
+	public boolean isEmpty() {
+		return mTokens.length == 0;
+	}
+
+	/**
+	 * @return the number of tokens of the query
+	 */
+	public int getTokenCount() {
+		return mTokens.length;
+	}
+
+	/**
+	 * @param token the index of the token
+	 * @return the length of the token, that is also the length of its matches
+	 */
+	public int getTokenLength(int token) {
+		return mTokens[token].length;
+	}
+
+	/**
+	 * Folds the case and the accents of a character, according to the Locale of this matcher.
+	 *
+	 * @param c the character to fold
+	 * @return the folded character
+	 */
+	public char fold(char c) {
+		if (mTurkish) {
+			if (c == 'I') return '\u0131';//dotless i
+			if (c == '\u0130') return 'i';//dotted I
+		}
+		return c < FOLD_TABLE.length ? FOLD_TABLE[c] : Character.toLowerCase(c);
+	}
+
+	/**
+	 * @param text the text to check
+	 * @return true if the text contains all the tokens of the query, false otherwise
+	 */
+	public boolean matches(@Nullable CharSequence text) {
+		if (mTokens.length == 0) return true;
+		if (text == null) return false;
+		for (int t = 0; t < mTokens.length; t++) {
+			if (indexOf(text, t, 0) < 0) return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Finds the next match of a token in the text.
+	 *
+	 * @param text      the text to search in
+	 * @param token     the index of the token
+	 * @param fromIndex the index to start the search from
+	 * @return the start of the match, the end is start + {@link #getTokenLength(int)}; -1 if
+	 * not found
+	 */
+	public int indexOf(@NonNull CharSequence text, int token, int fromIndex) {
+		return indexOf(text, mTokens[token], fromIndex, mMode == MATCH_PREFIX);
+	}
+
+	private int indexOf(CharSequence text, char[] chars, int fromIndex, boolean wordStart) {
+		int last = text.length() - chars.length;
+		outer:
+		for (int i = Math.max(0, fromIndex); i <= last; i++) {
+			if (wordStart && !isWordStart(text, i)) continue;
+			for (int k = 0; k < chars.length; k++) {
+				if (fold(text.charAt(i + k)) != chars[k]) continue outer;
+			}
+			return i;
+		}
+		return -1;
+	}
+
+	private static boolean isWordStart(CharSequence text, int index) {
+		return index == 0 || !Character.isLetterOrDigit(text.charAt(index - 1));
+	}
+
+	/**
+	 * Scores the relevance of the text for the query, without allocation.
+	 * <p>Each token scores the best of its occurrences: at the beginning of the text, at the
+	 * beginning of a word, anywhere or, in fuzzy way, as a subsequence of characters,
+	 * penalized by the gaps between them. Earlier occurrences score slightly more. All the
+	 * tokens must be found.</p>
+	 * In {@link #MATCH_PREFIX} mode only the occurrences at the beginning of a word score:
+	 * the scored texts are exactly the texts accepted by {@link #matches(CharSequence)}.
+	 *
+	 * @param text the text to score
+	 * @return the score of the text, 0 if the text doesn't match
+	 */
+	public int score(@Nullable CharSequence text) {
+		if (text == null) return 0;
+		if (mTokens.length == 0) return 1;
+		int total = 0;
+		for (char[] chars : mTokens) {
+			int best = 0;
+			for (int i = indexOf(text, chars, 0, false); i >= 0; i = indexOf(text, chars, i + 1, false)) {
+				int score;
+				if (i == 0) score = SCORE_PREFIX;
+				else if (isWordStart(text, i)) score = SCORE_WORD;
+				else if (mMode == MATCH_PREFIX) continue;
+				else score = SCORE_CONTAINS;
+				score -= Math.min(i, 10);//Position penalty
+				if (score > best) best = score;
+				if (i == 0) break;
+			}
+			if (best == 0 && mMode != MATCH_PREFIX) best = fuzzyScore(text, chars);
+			if (best <= 0) return 0;
+			total += best;
+		}
+		return total;
+	}
+
+	/**
+	 * Greedy subsequence match: the score decreases with the characters skipped in between.
+	 */
+	private int fuzzyScore(CharSequence text, char[] chars) {
+		int length = text.length(), k = 0, first = -1, last = -1;
+		for (int i = 0; i < length && k < chars.length; i++) {
+			if (fold(text.charAt(i)) == chars[k]) {
+				if (first < 0) first = i;
+				last = i;
+				k++;
+			}
+		}
+		if (k < chars.length) return 0;
+		int gaps = last - first + 1 - chars.length;
+		return Math.max(1, SCORE_FUZZY - gaps);
+	}
+
+	/**
+	 * Finds the first match of each token in the text, without allocation.
+	 *
+	 * @param text   the text to search in
+	 * @param ranges the array to fill with the pairs start, end (exclusive) of the matches
+	 * @return the number of matches written in the array (pairs), 0 if not all the tokens are
+	 * found
+	 */
+	public int findMatches(@NonNull CharSequence text, @NonNull int[] ranges) {
+		int count = 0;
+		for (int t = 0; t < mTokens.length; t++) {
+			int start = indexOf(text, t, 0);
+			if (start < 0) return 0;
+			if (count * 2 + 1 < ranges.length) {
+				ranges[count * 2] = start;
+				ranges[count * 2 + 1] = start + mTokens[t].length;
+				count++;
+			}
+		}
+		return count;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) return true;
+		if (!(o instanceof SearchMatcher)) return false;
+		SearchMatcher other = (SearchMatcher) o;
+		return mMode == other.mMode && mQuery.equals(other.mQuery) && mLocale.equals(other.mLocale);
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 * (31 * mQuery.hashCode() + mLocale.hashCode()) + mMode;
+	}
+
+	@Override
+	public String toString() {
+		return "SearchMatcher[query=" + mQuery + ", mode=" + mMode + ", locale=" + mLocale + "]";
+	}
+
+}
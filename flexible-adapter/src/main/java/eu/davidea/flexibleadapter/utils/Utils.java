@@ -85,6 +85,54 @@ public final class Utils {
 		}
 	}
 
+	/**
+	 * Same as {@link #highlightText(Context, TextView, String, String, int)}, but with the
+	 * matcher of the Adapter, to highlight exactly what the filter has matched: each token of
+	 * the search text is highlighted, ignoring case and accents.
+	 *
+	 * @param context      context
+	 * @param textView     the TextView to transform
+	 * @param originalText the original text which the transformation is applied to
+	 * @param matcher      the matcher of the current search text
+	 * @param defColor     the default color in case accentColor is not found
+	 * @see eu.davidea.flexibleadapter.FlexibleAdapter#getSearchMatcher()
+	 */
+	public static void highlightText(@NonNull Context context, @NonNull TextView textView,
+									 String originalText, @NonNull SearchMatcher matcher, @ColorInt int defColor) {
+		CharSequence text = getHighlightedText(originalText, matcher, fetchAccentColor(context, defColor));
+		textView.setText(text, text instanceof Spannable ?
+				TextView.BufferType.SPANNABLE : TextView.BufferType.NORMAL);
+	}
+
+	/**
+	 * Builds the text with each match of the matcher highlighted. This method is thread safe.
+	 * <p>The Adapter caches the results of this method per item, see
+	 * {@link eu.davidea.flexibleadapter.FlexibleAdapter#getHighlightedText(eu.davidea.flexibleadapter.items.IFlexible, String, int)}.</p>
+	 *
+	 * @param originalText the original text which the transformation is applied to
+	 * @param matcher      the matcher of the current search text
+	 * @param color        the color of the highlighted text
+	 * @return a Spannable if the text matched, the original text otherwise
+	 */
+	@NonNull
+	public static CharSequence getHighlightedText(String originalText, @NonNull SearchMatcher matcher,
+												  @ColorInt int color) {
+		if (originalText == null) originalText = "";
+		CharSequence text = originalText;
+		int[] ranges = new int[matcher.getTokenCount() * 2];
+		int count = matcher.findMatches(originalText, ranges);
+		if (count > 0) {
+			Spannable spanText = Spannable.Factory.getInstance().newSpannable(originalText);
+			for (int i = 0; i < count; i++) {
+				int start = ranges[i * 2], end = ranges[i * 2 + 1];
+				spanText.setSpan(new ForegroundColorSpan(color), start, end, Spannable.SPAN_EXCLUSIVE_EXCLUSIVE);
+				spanText.setSpan(new StyleSpan(Typeface.BOLD), start, end, Spannable.SPAN_EXCLUSIVE_EXCLUSIVE);
+			}
+			text = spanText;
+		}
+		return text;
+	}
+
 	/**
 	 * Reset the internal accent color to {@link #INVALID_COLOR}, to give the possibility
 	 * to re-fetch it at runtime, since once it is fetched it cannot be changed.
@@ -49,7 +49,7 @@ public abstract class FlexibleViewHolder extends ContentViewHolder
 	private static final String TAG = FlexibleViewHolder.class.getSimpleName();
 
 	//FlexibleAdapter is needed to retrieve listeners and item status
-	protected final FlexibleAdapter mAdapter;
+	protected FlexibleAdapter mAdapter;
 
 	//These 2 fields avoid double tactile feedback triggered by Android during the touch event
 	// (Drag or Swipe), also assure the LongClick event is correctly fired for ActionMode if that
@@ -91,6 +91,17 @@ public abstract class FlexibleViewHolder extends ContentViewHolder
 		getContentView().setOnLongClickListener(this);
 	}
 
+	/**
+	 * Attaches this ViewHolder to the Adapter that is going to bind it.
+	 * <p>Automatically called by the Adapter when the ViewHolder comes from a
+	 * {@link eu.davidea.flexibleadapter.common.FlexibleViewPool} shared with other Adapters.</p>
+	 *
+	 * @param adapter Adapter instance of type {@link FlexibleAdapter}
+	 */
+	public void setAdapter(FlexibleAdapter adapter) {
+		this.mAdapter = adapter;
+	}
+
 	/*--------------------------------*/
 	/* CLICK LISTENERS IMPLEMENTATION */
 	/*--------------------------------*/